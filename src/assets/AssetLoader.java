@@ -0,0 +1,193 @@
+package assets;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import javax.imageio.ImageIO;
+
+// Every image the game reads goes through here. Images are decoded once and kept, and
+// preload() decodes a whole manifest in parallel up front so later loads are lookups.
+// When AssetPacker has been run, pixels come from the mapped pack instead of ImageIO,
+// unless the PNG has changed since the pack was built.
+//   -Dasset.pack=<file>   (default: assets.pak at the classpath root)
+public final class AssetLoader {
+    public static final String[] IMAGE_ROOTS = { "/assets", "/sprites" };
+    public static final String PACK_NAME = "assets.pak";
+
+    private static final ConcurrentHashMap<String, BufferedImage> images = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Boolean> missing = new ConcurrentHashMap<>();
+
+    private static final AssetPack pack = openPack();
+    private static final AtomicBoolean warnedStale = new AtomicBoolean();
+
+    static {
+        // decode straight from memory instead of spooling through temp files
+        ImageIO.setUseCache(false);
+    }
+
+    public interface ProgressListener {
+        void onProgress(int loaded, int total);
+    }
+
+    private AssetLoader() {
+    }
+
+    // Decoded image for a classpath path like "/assets/ui/sword.png", or null if there isn't one.
+    public static BufferedImage image(String path) {
+        BufferedImage image = images.get(path);
+        if (image != null || missing.containsKey(path)) {
+            return image;
+        }
+        image = decode(path);
+        if (image == null) {
+            missing.put(path, Boolean.TRUE);
+            return null;
+        }
+        BufferedImage raced = images.putIfAbsent(path, image);
+        return raced != null ? raced : image;
+    }
+
+    private static BufferedImage decode(String path) {
+        URL res = AssetLoader.class.getResource(path);
+        if (pack != null && pack.contains(path)) {
+            if (res == null || pack.isCurrent(path, res)) {
+                return pack.image(path);
+            }
+            if (!warnedStale.getAndSet(true)) {
+                System.err.println("Asset pack " + pack.getFile() + " is older than " + path
+                        + "; decoding changed images with ImageIO until assets.AssetPacker is rerun");
+            }
+        }
+        if (res == null) {
+            return null;
+        }
+        try {
+            return ImageIO.read(res);
+        } catch (IOException e) {
+            System.err.println("Could not decode image " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static AssetPack openPack() {
+        String configured = System.getProperty("asset.pack");
+        Path file = null;
+        if (configured != null) {
+            file = Paths.get(configured);
+        } else {
+            // only a plain file can be mapped; inside a jar we fall back to ImageIO
+            URL url = AssetLoader.class.getResource("/" + PACK_NAME);
+            if (url != null && "file".equals(url.getProtocol())) {
+                try {
+                    file = Paths.get(url.toURI());
+                } catch (URISyntaxException e) {
+                    file = null;
+                }
+            }
+        }
+        if (file == null || !Files.isRegularFile(file)) {
+            if (configured != null) {
+                System.err.println("Asset pack " + configured + " not found, decoding with ImageIO");
+            }
+            return null;
+        }
+        AssetPack opened = AssetPack.open(file);
+        if (opened != null) {
+            System.out.println("Loaded asset pack " + file + " (" + opened.size() + " images)");
+        }
+        return opened;
+    }
+
+    public static boolean hasPack() {
+        return pack != null;
+    }
+
+    // Every PNG under the given classpath directories, from the build output or a jar.
+    public static List<String> discover(String... roots) {
+        List<String> paths = new ArrayList<>();
+        for (String root : roots) {
+            URL url = AssetLoader.class.getResource(root);
+            if (url == null) {
+                continue;
+            }
+            try {
+                URI uri = url.toURI();
+                if ("jar".equals(uri.getScheme())) {
+                    FileSystem fs;
+                    try {
+                        fs = FileSystems.newFileSystem(uri, Collections.emptyMap());
+                    } catch (FileSystemAlreadyExistsException e) {
+                        fs = FileSystems.getFileSystem(uri);
+                    }
+                    collect(fs.getPath(root), root, paths);
+                } else {
+                    collect(Paths.get(uri), root, paths);
+                }
+            } catch (IOException | URISyntaxException e) {
+                System.err.println("Could not list assets under " + root + ": " + e.getMessage());
+            }
+        }
+        Collections.sort(paths);
+        return paths;
+    }
+
+    private static void collect(Path dir, String root, List<String> out) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.filter(p -> p.getFileName().toString().toLowerCase().endsWith(".png"))
+                 .forEach(p -> out.add(root + "/" + dir.relativize(p).toString().replace('\\', '/')));
+        }
+    }
+
+    // Decodes every path on its own pool, reporting progress from whichever worker finished.
+    public static CompletableFuture<Void> preload(List<String> paths, ProgressListener listener) {
+        int total = paths.size();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        AtomicInteger loaded = new AtomicInteger();
+        if (listener != null) {
+            listener.onProgress(0, total);
+        }
+
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[total];
+        for (int i = 0; i < total; i++) {
+            String path = paths.get(i);
+            tasks[i] = CompletableFuture.runAsync(() -> {
+                image(path);
+                int done = loaded.incrementAndGet();
+                if (listener != null) {
+                    listener.onProgress(done, total);
+                }
+            }, pool);
+        }
+        return CompletableFuture.allOf(tasks).whenComplete((ignored, error) -> pool.shutdown());
+    }
+
+    // Forgets a decoded image, for callers that keep a smaller form of it themselves.
+    public static void evict(String path) {
+        images.remove(path);
+    }
+
+    public static boolean isCached(String path) {
+        return images.containsKey(path);
+    }
+
+    public static int cachedCount() {
+        return images.size();
+    }
+}
@@ -0,0 +1,193 @@
+package assets;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Read side of the archive AssetPacker writes: already-decoded pixels behind one
+// memory-mapped file, so loading an image is a copy out of the page cache.
+//   header:  int magic, int version, long indexOffset
+//   data:    big-endian ARGB (or xRGB) ints, one block per image
+//   index:   int count, then per image: UTF path, byte type, int width, int height, long offset,
+//            then the source PNG's long size, long lastModified (ms) and int CRC32
+public final class AssetPack {
+    static final int MAGIC = 0x4251504B; // "BQPK"
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 16;
+    static final byte TYPE_RGB = 1;
+    static final byte TYPE_ARGB = 2;
+
+    private static final int ROWS_PER_COPY = 64;
+
+    private final Path file;
+    private final MappedByteBuffer data;
+    private final HashMap<String, Entry> index = new HashMap<>();
+
+    private static final class Entry {
+        final byte type;
+        final int width;
+        final int height;
+        final long offset;
+        final long sourceSize;
+        final long sourceModified;
+        final int sourceCrc;
+
+        Entry(byte type, int width, int height, long offset, long sourceSize, long sourceModified, int sourceCrc) {
+            this.type = type;
+            this.width = width;
+            this.height = height;
+            this.offset = offset;
+            this.sourceSize = sourceSize;
+            this.sourceModified = sourceModified;
+            this.sourceCrc = sourceCrc;
+        }
+    }
+
+    private AssetPack(Path file, MappedByteBuffer data) throws IOException {
+        this.file = file;
+        this.data = data;
+        if (data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+            throw new IOException("not a version " + VERSION + " asset pack");
+        }
+        int indexOffset = (int) data.getLong(8);
+        byte[] bytes = new byte[data.capacity() - indexOffset];
+        data.duplicate().position(indexOffset).get(bytes);
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                byte type = in.readByte();
+                int width = in.readInt();
+                int height = in.readInt();
+                long offset = in.readLong();
+                long sourceSize = in.readLong();
+                long sourceModified = in.readLong();
+                int sourceCrc = in.readInt();
+                if (offset + 4L * width * height > indexOffset) {
+                    throw new IOException("entry " + path + " runs past the pixel data");
+                }
+                index.put(path, new Entry(type, width, height, offset, sourceSize, sourceModified, sourceCrc));
+            }
+        }
+    }
+
+    // The archive at the given path, or null (with a message) if it can't be used.
+    public static AssetPack open(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                System.err.println("Asset pack " + file + " is too large to map");
+                return null;
+            }
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new AssetPack(file, data);
+        } catch (IOException e) {
+            System.err.println("Could not open asset pack " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public boolean contains(String path) {
+        return index.containsKey(path);
+    }
+
+    // Whether the pack's pixels for path were decoded from the PNG that is at source now. Size
+    // and time settle it cheaply; when only the time differs (a build that copies resources
+    // again) the bytes are checked against the CRC instead.
+    public boolean isCurrent(String path, URL source) {
+        Entry e = index.get(path);
+        if (e == null) {
+            return false;
+        }
+        try {
+            if ("file".equals(source.getProtocol())) {
+                // straight to the file system; a FileURLConnection would open the PNG to stat it
+                Path file = Paths.get(source.toURI());
+                if (Files.size(file) != e.sourceSize) {
+                    return false;
+                }
+                return Files.getLastModifiedTime(file).toMillis() == e.sourceModified
+                        || crc(Files.newInputStream(file)) == e.sourceCrc;
+            }
+            URLConnection conn = source.openConnection();
+            InputStream in = conn.getInputStream();
+            try {
+                if (conn.getContentLengthLong() != e.sourceSize) {
+                    return false;
+                }
+                return conn.getLastModified() == e.sourceModified || crc(in) == e.sourceCrc;
+            } finally {
+                in.close();
+            }
+        } catch (IOException | URISyntaxException ex) {
+            return false;
+        }
+    }
+
+    static int crc(InputStream in) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[8192];
+        try (InputStream stream = in) {
+            for (int n; (n = stream.read(buffer)) > 0; ) {
+                crc.update(buffer, 0, n);
+            }
+        }
+        return (int) crc.getValue();
+    }
+
+    public List<String> paths() {
+        List<String> paths = new ArrayList<>(index.keySet());
+        Collections.sort(paths);
+        return paths;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // A fresh image copied out of the mapping, or null if the pack doesn't have the path.
+    public BufferedImage image(String path) {
+        Entry e = index.get(path);
+        if (e == null) {
+            return null;
+        }
+        int imageType = e.type == TYPE_RGB ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage image = new BufferedImage(e.width, e.height, imageType);
+        WritableRaster raster = image.getRaster();
+
+        // Copy through the raster in strips instead of grabbing the backing array,
+        // which would stop Java2D from caching the image in video memory.
+        IntBuffer pixels = data.duplicate().position((int) e.offset).asIntBuffer();
+        int rows = Math.min(ROWS_PER_COPY, e.height);
+        int[] strip = new int[e.width * rows];
+        for (int y = 0; y < e.height; y += rows) {
+            int h = Math.min(rows, e.height - y);
+            pixels.get(strip, 0, e.width * h);
+            raster.setDataElements(0, y, e.width, h, strip);
+        }
+        return image;
+    }
+}
@@ -0,0 +1,106 @@
+package assets;
+
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.imageio.ImageIO;
+
+// Build step: decodes every PNG under <classes>/assets and <classes>/sprites once and writes
+// the pixels into one archive that AssetLoader maps at startup.
+//   java assets.AssetPacker <classes dir> [out file]     (out defaults to <classes>/assets.pak)
+// Rerun it whenever the art changes; a missing pack just means ImageIO decodes as before.
+public class AssetPacker {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java assets.AssetPacker <classes dir> [out file]");
+            System.exit(1);
+        }
+        Path classes = Paths.get(args[0]);
+        Path out = args.length > 1 ? Paths.get(args[1]) : classes.resolve(AssetLoader.PACK_NAME);
+
+        long start = System.nanoTime();
+        List<String> paths = new ArrayList<>();
+        for (String root : AssetLoader.IMAGE_ROOTS) {
+            Path dir = classes.resolve(root.substring(1));
+            if (Files.isDirectory(dir)) {
+                try (Stream<Path> files = Files.walk(dir)) {
+                    files.filter(p -> p.getFileName().toString().toLowerCase().endsWith(".png"))
+                         .forEach(p -> paths.add(root + "/" + dir.relativize(p).toString().replace('\\', '/')));
+                }
+            }
+        }
+        Collections.sort(paths);
+
+        long bytes = pack(classes, paths, out);
+        System.out.printf("Packed %d images (%.1f MB) into %s in %.0f ms%n",
+                paths.size(), bytes / 1e6, out, (System.nanoTime() - start) / 1e6);
+    }
+
+    private static long pack(Path classes, List<String> paths, Path out) throws IOException {
+        ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+        DataOutputStream index = new DataOutputStream(indexBytes);
+        int count = 0;
+
+        try (FileChannel channel = FileChannel.open(out, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(AssetPack.HEADER_BYTES);
+            for (String path : paths) {
+                Path source = classes.resolve(path.substring(1));
+                BufferedImage image = ImageIO.read(source.toFile());
+                if (image == null) {
+                    System.err.println("Skipping " + path + ": not a readable image");
+                    continue;
+                }
+                int w = image.getWidth();
+                int h = image.getHeight();
+                boolean opaque = image.getColorModel().getTransparency() == Transparency.OPAQUE;
+
+                ByteBuffer pixels = ByteBuffer.allocate(w * h * 4);
+                pixels.asIntBuffer().put(image.getRGB(0, 0, w, h, null, 0, w));
+                long offset = channel.position();
+                writeFully(channel, pixels);
+
+                index.writeUTF(path);
+                index.writeByte(opaque ? AssetPack.TYPE_RGB : AssetPack.TYPE_ARGB);
+                index.writeInt(w);
+                index.writeInt(h);
+                index.writeLong(offset);
+                // lets AssetLoader notice art that changed after this pack was built
+                index.writeLong(Files.size(source));
+                index.writeLong(Files.getLastModifiedTime(source).toMillis());
+                index.writeInt(AssetPack.crc(Files.newInputStream(source)));
+                count++;
+            }
+
+            long indexOffset = channel.position();
+            ByteBuffer countBytes = ByteBuffer.allocate(4).putInt(0, count);
+            writeFully(channel, countBytes);
+            writeFully(channel, ByteBuffer.wrap(indexBytes.toByteArray()));
+
+            ByteBuffer header = ByteBuffer.allocate(AssetPack.HEADER_BYTES);
+            header.putInt(AssetPack.MAGIC).putInt(AssetPack.VERSION).putLong(indexOffset).flip();
+            channel.position(0);
+            writeFully(channel, header);
+            return channel.size();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package bench;
+
+import java.util.List;
+import assets.AssetLoader;
+import main.GameLoop;
+
+// Run with: java -Djava.awt.headless=true bench.AssetLoadBenchmark sequential|parallel
+// Startup cost without a window. "sequential" is the old path: the world (and every image
+// it touches) is built before the landing page can show. "parallel" shows the landing page
+// after its own three images and decodes the rest on a pool before building the world.
+// Use a fresh JVM per mode, since decoded images stay cached for the life of the process.
+public class AssetLoadBenchmark {
+    private static final String[] LANDING = {
+        "/assets/ui/background.png", "/assets/ui/clouds.png", "/assets/ui/sword.png"
+    };
+
+    public static void main(String[] args) {
+        boolean parallel = args.length > 0 && args[0].equals("parallel");
+        long start = System.nanoTime();
+
+        if (parallel) {
+            for (String path : LANDING) {
+                AssetLoader.image(path);
+            }
+            report("landing ready", start);
+            List<String> manifest = AssetLoader.discover(AssetLoader.IMAGE_ROOTS);
+            AssetLoader.preload(manifest, null).join();
+            report(manifest.size() + " images decoded", start);
+            GameLoop.loadWorld().shutdown();
+            report("world ready", start);
+        } else {
+            GameLoop.loadWorld().shutdown();
+            for (String path : LANDING) {
+                AssetLoader.image(path);
+            }
+            report("landing ready", start);
+            report("world ready", start);
+        }
+        System.out.println("images cached: " + AssetLoader.cachedCount());
+    }
+
+    private static void report(String name, long start) {
+        System.out.printf("%-22s %6.1f ms%n", name + ":", (System.nanoTime() - start) / 1e6);
+    }
+}
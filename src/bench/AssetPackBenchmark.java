@@ -0,0 +1,72 @@
+package bench;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.util.List;
+import javax.imageio.ImageIO;
+import assets.AssetPack;
+
+// Run with: java -Djava.awt.headless=true bench.AssetPackBenchmark <pack file>
+// Build the pack first with: java assets.AssetPacker <classes dir>
+// Loads every image in the pack once through ImageIO and once from the mapped pack, then
+// from the pack again with the staleness check AssetLoader makes against each source PNG.
+public class AssetPackBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java bench.AssetPackBenchmark <pack file>");
+            System.exit(1);
+        }
+        ImageIO.setUseCache(false);
+
+        long start = System.nanoTime();
+        AssetPack pack = AssetPack.open(Paths.get(args[0]));
+        if (pack == null) {
+            System.exit(1);
+        }
+        report("open + index", start);
+        List<String> paths = pack.paths();
+
+        for (int round = 0; round < 3; round++) {
+            long pixels = 0;
+            start = System.nanoTime();
+            for (String path : paths) {
+                URL res = AssetPackBenchmark.class.getResource(path);
+                BufferedImage image = res != null ? ImageIO.read(res) : null;
+                if (image != null) pixels += (long) image.getWidth() * image.getHeight();
+            }
+            report("ImageIO, " + paths.size() + " images", start);
+
+            start = System.nanoTime();
+            for (String path : paths) {
+                BufferedImage image = pack.image(path);
+                pixels -= (long) image.getWidth() * image.getHeight();
+            }
+            report("pack,    " + paths.size() + " images", start);
+
+            int stale = 0;
+            start = System.nanoTime();
+            for (String path : paths) {
+                URL res = AssetPackBenchmark.class.getResource(path);
+                if (res != null && !pack.isCurrent(path, res)) {
+                    stale++;
+                    continue;
+                }
+                pack.image(path);
+            }
+            report("pack + check", start);
+            if (stale > 0) {
+                System.out.println(stale + " images changed since the pack was built");
+            }
+            if (pixels != 0) {
+                System.out.println("pixel counts differ: " + pixels);
+            }
+        }
+    }
+
+    private static void report(String name, long start) {
+        System.out.printf("%-24s %7.1f ms%n", name + ":", (System.nanoTime() - start) / 1e6);
+    }
+}
@@ -0,0 +1,64 @@
+package bench;
+
+import java.lang.management.ManagementFactory;
+import input.KeyHandler;
+import main.Simulation;
+import maps.Map;
+import maps.MapLoader;
+
+// Run with: java -Djava.awt.headless=true bench.AttackPoolBenchmark
+// Bytes allocated per simulation tick on the forest map while SPACE and W are held (the
+// player circling so attacks face every way), against the same walk with no attacks.
+// Counts the ticking thread only; the enemy update's pool workers aren't included.
+public class AttackPoolBenchmark {
+    private static final float TICK_SECONDS = 1f / 60;
+    private static final int WARMUP_TICKS = 20_000;
+    private static final int TICKS = 60_000;
+    private static final int TURN_TICKS = 45;
+    private static final int[] MOVES = {
+        KeyHandler.RIGHT, KeyHandler.DOWN | KeyHandler.RIGHT, KeyHandler.DOWN, KeyHandler.DOWN | KeyHandler.LEFT,
+        KeyHandler.LEFT, KeyHandler.UP | KeyHandler.LEFT, KeyHandler.UP, KeyHandler.UP | KeyHandler.RIGHT,
+    };
+
+    public static void main(String[] args) {
+        Map map = MapLoader.loadMap("forest", 48);
+        Simulation simulation = new Simulation(map, new KeyHandler());
+        int attacks = KeyHandler.SKILL_SPACE | KeyHandler.SKILL_W;
+        for (int round = 0; round < 3; round++) {
+            run("walking         ", simulation, 0);
+            run("SPACE + W held  ", simulation, attacks);
+        }
+        simulation.shutdown();
+    }
+
+    private static void run(String name, Simulation simulation, int held) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        simulation.reset(7);
+        tick(simulation, held, WARMUP_TICKS);
+
+        int maxActive = 0;
+        long allocated = threads.getThreadAllocatedBytes(id);
+        long start = System.nanoTime();
+        for (int t = 0; t < TICKS; t += TURN_TICKS) {
+            tick(simulation, held, TURN_TICKS);
+            maxActive = Math.max(maxActive,
+                    simulation.getPlayer().getSlashes().size() + simulation.getPlayer().getSkillWAttacks().size());
+        }
+        double us = (System.nanoTime() - start) / 1e3 / TICKS;
+        double bytes = (threads.getThreadAllocatedBytes(id) - allocated) / (double) TICKS;
+        System.out.printf("%s %7.1f bytes/tick %7.2f us/tick, up to %d attacks live%n", name, bytes, us, maxActive);
+    }
+
+    private static void tick(Simulation simulation, int held, int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            long t = simulation.getTickCount();
+            int input = held | MOVES[(int) (t / TURN_TICKS % MOVES.length)];
+            simulation.tick(TICK_SECONDS, input);
+            if (simulation.isGameOver()) {
+                simulation.reset(7);
+            }
+        }
+    }
+}
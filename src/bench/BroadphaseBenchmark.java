@@ -0,0 +1,71 @@
+package bench;
+
+import java.awt.Rectangle;
+import java.util.Random;
+import entities.EnemyStore;
+import main.SpatialGrid;
+import maps.Map;
+
+// Run with: java bench.BroadphaseBenchmark
+public class BroadphaseBenchmark {
+    private static final int WORLD_SIZE = 8192;
+    private static final int HITBOXES = 48;
+    private static final int HITBOX_SIZE = 50;
+    private static final int TICKS = 200;
+
+    public static void main(String[] args) {
+        Random rand = new Random(42);
+        Rectangle[] hitboxes = new Rectangle[HITBOXES];
+        for (int i = 0; i < HITBOXES; i++) {
+            hitboxes[i] = new Rectangle(rand.nextInt(WORLD_SIZE), rand.nextInt(WORLD_SIZE), HITBOX_SIZE, HITBOX_SIZE);
+        }
+
+        for (int count = 1000; count <= 16000; count *= 2) {
+            EnemyStore enemies = new EnemyStore(new Map(null, null, 48), count);
+            for (int i = 0; i < count; i++) {
+                enemies.spawn(rand.nextInt(WORLD_SIZE), rand.nextInt(WORLD_SIZE));
+            }
+            SpatialGrid grid = new SpatialGrid(WORLD_SIZE, WORLD_SIZE, 64);
+
+            double brute = 0, broad = 0;
+            int bruteHits = 0, gridHits = 0;
+            for (int warm = 0; warm < 2; warm++) {
+                long start = System.nanoTime();
+                for (int t = 0; t < TICKS; t++) bruteHits = bruteForce(enemies, hitboxes);
+                brute = (System.nanoTime() - start) / 1_000_000.0 / TICKS;
+
+                start = System.nanoTime();
+                for (int t = 0; t < TICKS; t++) gridHits = withGrid(grid, enemies, hitboxes);
+                broad = (System.nanoTime() - start) / 1_000_000.0 / TICKS;
+            }
+            if (bruteHits != gridHits) {
+                throw new IllegalStateException("hit mismatch: " + bruteHits + " vs " + gridHits);
+            }
+            System.out.printf("%,6d enemies x %d hitboxes: brute force %.3f ms/tick, grid %.3f ms/tick (%d hits)%n",
+                    count, HITBOXES, brute, broad, gridHits);
+        }
+    }
+
+    private static int bruteForce(EnemyStore enemies, Rectangle[] hitboxes) {
+        int hits = 0;
+        for (Rectangle box : hitboxes) {
+            for (int i = 0; i < enemies.size(); i++) {
+                if (enemies.isAlive(i) && box.intersects(enemies.get(i).getBounds())) hits++;
+            }
+        }
+        return hits;
+    }
+
+    private static int withGrid(SpatialGrid grid, EnemyStore enemies, Rectangle[] hitboxes) {
+        int hits = 0;
+        grid.rebuild(enemies);
+        for (Rectangle box : hitboxes) {
+            int candidates = grid.query(box.x, box.y, box.width, box.height);
+            for (int i = 0; i < candidates; i++) {
+                int e = grid.result(i);
+                if (enemies.isAlive(e) && enemies.intersects(e, box.x, box.y, box.width, box.height)) hits++;
+            }
+        }
+        return hits;
+    }
+}
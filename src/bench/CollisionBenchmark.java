@@ -0,0 +1,95 @@
+package bench;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import maps.Collision;
+import maps.MapLoader;
+
+// Run with: java bench.CollisionBenchmark
+public class CollisionBenchmark {
+    private static final int QUERIES = 5_000_000;
+    private static final int BOX = 100;
+
+    public static void main(String[] args) {
+        BufferedImage mask = loadMask();
+        Collision collision = new Collision(mask);
+
+        Random rand = new Random(42);
+        int[] xs = new int[QUERIES];
+        int[] ys = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            xs[i] = rand.nextInt(mask.getWidth());
+            ys[i] = rand.nextInt(mask.getHeight());
+        }
+
+        for (int round = 0; round < 3; round++) {
+            report("getRGB + Color", measure(() -> {
+                int hits = 0;
+                for (int i = 0; i < QUERIES; i++) {
+                    if (legacyIsBlocked(mask, xs[i], ys[i], BOX, BOX)) hits++;
+                }
+                return hits;
+            }));
+            report("summed-area   ", measure(() -> {
+                int hits = 0;
+                for (int i = 0; i < QUERIES; i++) {
+                    if (collision.isBlocked(xs[i], ys[i], BOX, BOX)) hits++;
+                }
+                return hits;
+            }));
+        }
+    }
+
+    private static BufferedImage loadMask() {
+        BufferedImage mask = null;
+        if (MapLoader.class.getResource("/assets/tiles/forest_collision.png") != null) {
+            mask = MapLoader.loadCollisionMask("forest");
+        }
+        if (mask != null) {
+            return mask;
+        }
+        System.out.println("No forest collision mask, using a random 2048x1536 mask");
+        mask = new BufferedImage(2048, 1536, BufferedImage.TYPE_INT_RGB);
+        Random rand = new Random(7);
+        for (int y = 0; y < mask.getHeight(); y++) {
+            for (int x = 0; x < mask.getWidth(); x++) {
+                mask.setRGB(x, y, rand.nextInt(4) == 0 ? 0x000000 : 0xFFFFFF);
+            }
+        }
+        return mask;
+    }
+
+    // The per-pixel lookup Collision used before the mask was compiled to bits.
+    private static boolean legacyIsBlocked(BufferedImage mask, int x, int y, int w, int h) {
+        int mapW = mask.getWidth();
+        int mapH = mask.getHeight();
+        int x1 = Math.max(0, Math.min(mapW - 1, x));
+        int y1 = Math.max(0, Math.min(mapH - 1, y));
+        int x2 = Math.max(0, Math.min(mapW - 1, x + w - 1));
+        int y2 = Math.max(0, Math.min(mapH - 1, y + h - 1));
+        return legacyPixel(mask, x1, y1) || legacyPixel(mask, x2, y1)
+                || legacyPixel(mask, x1, y2) || legacyPixel(mask, x2, y2);
+    }
+
+    private static boolean legacyPixel(BufferedImage mask, int x, int y) {
+        Color c = new Color(mask.getRGB(x, y), true);
+        return c.getRed() + c.getGreen() + c.getBlue() < 100;
+    }
+
+    interface Workload {
+        int run();
+    }
+
+    private static double measure(Workload workload) {
+        long start = System.nanoTime();
+        int hits = workload.run();
+        long elapsed = System.nanoTime() - start;
+        if (hits < 0) System.out.println(hits);
+        return QUERIES / (elapsed / 1_000_000_000.0);
+    }
+
+    private static void report(String name, double perSecond) {
+        System.out.printf("%s: %,.0f lookups/s%n", name, perSecond);
+    }
+}
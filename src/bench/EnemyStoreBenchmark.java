@@ -0,0 +1,43 @@
+package bench;
+
+import java.util.Random;
+import entities.EnemyStore;
+import entities.Player;
+import input.KeyHandler;
+import main.SpatialGrid;
+import maps.Map;
+
+// Run with: java bench.EnemyStoreBenchmark
+// Times the per-tick enemy work GameLoop.update does: snapshot, broadphase rebuild, AI update.
+public class EnemyStoreBenchmark {
+    private static final int WORLD_SIZE = 8192;
+    private static final int TICKS = 600;
+
+    public static void main(String[] args) {
+        Map map = new Map(null, null, 48);
+        // far outside the world so nobody reaches attack range and floods stdout
+        Player player = new Player(-100_000, -100_000, new KeyHandler(), map);
+
+        for (int count = 1250; count <= 40000; count *= 2) {
+            Random rand = new Random(42);
+            EnemyStore enemies = new EnemyStore(map, count);
+            for (int i = 0; i < count; i++) {
+                enemies.spawn(rand.nextInt(WORLD_SIZE), rand.nextInt(WORLD_SIZE));
+            }
+            SpatialGrid grid = new SpatialGrid(WORLD_SIZE, WORLD_SIZE, 64);
+
+            double ticksPerSecond = 0;
+            for (int warm = 0; warm < 2; warm++) {
+                long start = System.nanoTime();
+                for (int t = 0; t < TICKS; t++) {
+                    enemies.savePreviousPositions();
+                    grid.rebuild(enemies);
+                    enemies.updateAll(player.getX(), player.getY(), player);
+                }
+                ticksPerSecond = TICKS / ((System.nanoTime() - start) / 1_000_000_000.0);
+            }
+            System.out.printf("%,6d enemies: %,8.0f ticks/s (%s 60 Hz)%n",
+                    count, ticksPerSecond, ticksPerSecond >= 60 ? "holds" : "misses");
+        }
+    }
+}
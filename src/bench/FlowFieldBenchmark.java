@@ -0,0 +1,81 @@
+package bench;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import entities.EnemyStore;
+import entities.Player;
+import input.KeyHandler;
+import maps.FlowField;
+import maps.Map;
+import maps.NavGrid;
+
+// Run with: java -Djava.awt.headless=true bench.FlowFieldBenchmark
+public class FlowFieldBenchmark {
+    private static final int ENEMIES = 2_000;
+    private static final int TICKS = 3_000;
+    private static final int CELL = 16;
+
+    public static void main(String[] args) {
+        Map map = new Map(new BufferedImage(2048, 1536, BufferedImage.TYPE_INT_RGB), wallMask(), 48);
+        Player player = new Player(1900, 700, new KeyHandler(), map);
+
+        FlowField field = new FlowField(new NavGrid(map, CELL, 60, 60), false);
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            int rebuilds = 0;
+            for (int x = 1700; x < 2000; x += CELL) {
+                field.setTarget(x, 700);
+                rebuilds++;
+            }
+            double ms = (System.nanoTime() - start) / 1_000_000.0 / rebuilds;
+            System.out.printf("field rebuild: %.3f ms%n", ms);
+        }
+
+        for (int round = 0; round < 2; round++) {
+            run("straight line", map, player, null);
+            run("flow field   ", map, player, field);
+        }
+    }
+
+    private static void run(String name, Map map, Player player, FlowField field) {
+        EnemyStore enemies = new EnemyStore(map, ENEMIES);
+        enemies.setFlowField(field);
+        Random rand = new Random(3);
+        for (int i = 0; i < ENEMIES; i++) {
+            enemies.spawn(20 + rand.nextInt(300), 20 + rand.nextInt(1400));
+        }
+
+        long start = System.nanoTime();
+        for (int t = 0; t < TICKS; t++) {
+            if (field != null) field.setTarget(player.getX(), player.getY());
+            for (int i = 0; i < ENEMIES; i++) {
+                enemies.update(i, player.getX(), player.getY(), player);
+                // a dead player turns everyone around, which would skew the count
+                if (!player.isAlive()) return;
+            }
+        }
+        double ms = (System.nanoTime() - start) / 1_000_000.0 / TICKS;
+
+        int arrived = 0;
+        for (int i = 0; i < ENEMIES; i++) {
+            if (enemies.getX(i) > 540) arrived++;
+        }
+        System.out.printf("%s: %.3f ms/tick, %d of %d enemies got past the first wall%n", name, ms, arrived, ENEMIES);
+    }
+
+    // Staggered walls with one gap each, so a straight walk from the left gets stuck.
+    private static BufferedImage wallMask() {
+        BufferedImage mask = new BufferedImage(2048, 1536, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = mask.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 2048, 1536);
+        g.setColor(Color.BLACK);
+        g.fillRect(500, 0, 40, 1300);
+        g.fillRect(900, 236, 40, 1300);
+        g.fillRect(1300, 0, 40, 1300);
+        g.dispose();
+        return mask;
+    }
+}
@@ -0,0 +1,75 @@
+package bench;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import javax.swing.ImageIcon;
+import entities.Hotbar;
+import entities.InventoryUI;
+
+// Run with: java -Djava.awt.headless=true bench.HudBenchmark
+// Per-frame HUD cost: the old per-frame ImageIcon and Font creation, drawing the hotbar
+// straight to the frame, and blitting the cached overlay. Also checks the overlay draws
+// the same pixels as the direct path.
+public class HudBenchmark {
+    private static final int FRAMES = 20_000;
+    // a small PNG that exists, standing in for the item icons
+    private static final String ICON = "/assets/characters/player_hurt.png";
+
+    public static void main(String[] args) {
+        InventoryUI inventory = new InventoryUI(800, 600);
+        Hotbar hotbar = new Hotbar(800, 600, inventory);
+        BufferedImage frame = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = frame.createGraphics();
+
+        System.out.println("differing pixels, overlay vs direct: " + compare(hotbar));
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            int frames = FRAMES / 20;
+            for (int i = 0; i < frames; i++) {
+                for (int slot = 0; slot < 4; slot++) {
+                    new ImageIcon(HudBenchmark.class.getResource(ICON));
+                }
+                g.setFont(new Font("Arial", Font.BOLD, 12));
+                g.getFontMetrics();
+            }
+            report("old icon + font per frame", start, frames);
+
+            hotbar.setCached(false);
+            start = System.nanoTime();
+            for (int i = 0; i < FRAMES; i++) hotbar.draw(g);
+            report("direct draw", start, FRAMES);
+
+            hotbar.setCached(true);
+            start = System.nanoTime();
+            for (int i = 0; i < FRAMES; i++) hotbar.draw(g);
+            report("cached overlay", start, FRAMES);
+        }
+        g.dispose();
+    }
+
+    private static long compare(Hotbar hotbar) {
+        BufferedImage a = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        BufferedImage b = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        hotbar.setCached(false);
+        Graphics2D g = a.createGraphics();
+        hotbar.draw(g);
+        g.dispose();
+        hotbar.setCached(true);
+        g = b.createGraphics();
+        hotbar.draw(g);
+        g.dispose();
+        long diff = 0;
+        for (int y = 0; y < 600; y++) {
+            for (int x = 0; x < 800; x++) {
+                if (a.getRGB(x, y) != b.getRGB(x, y)) diff++;
+            }
+        }
+        return diff;
+    }
+
+    private static void report(String name, long start, int frames) {
+        System.out.printf("%-26s %8.2f us/frame%n", name + ":", (System.nanoTime() - start) / 1000.0 / frames);
+    }
+}
@@ -0,0 +1,131 @@
+package bench;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import entities.InventoryGrid;
+import entities.InventoryUI;
+
+// Run with: java -Djava.awt.headless=true bench.InventoryBenchmark [slot counts...]
+// Inventory latency at several sizes: opening it (build, layout, first paint) and one
+// use/refill action followed by painting only the cell it dirtied, against repainting the
+// whole visible grid. Also checks the dirty-cell paint leaves the same pixels as a full one.
+public class InventoryBenchmark {
+    private static final int ACTIONS = 2_000;
+    private static final int WIDTH = 800;
+    private static final int HEIGHT = 600;
+
+    public static void main(String[] args) {
+        int[] sizes = {20, 400, 1000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) sizes[i] = Integer.parseInt(args[i]);
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int slots : sizes) {
+                run(slots);
+            }
+        }
+    }
+
+    private static void run(int slotCount) {
+        BufferedImage screen = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+
+        long start = System.nanoTime();
+        InventoryUI inventory = new InventoryUI(WIDTH, HEIGHT, slotCount);
+        while (inventory.addItem("potion_red", 5)) {
+        }
+        inventory.setSize(WIDTH, HEIGHT);
+        layout(inventory);
+        Graphics2D g = screen.createGraphics();
+        inventory.printAll(g);
+        g.dispose();
+        double openMs = (System.nanoTime() - start) / 1e6;
+
+        // the consumables tab shows every slot here, since all but the first few hold potions
+        InventoryGrid grid = grids(inventory, new ArrayList<>()).get(1);
+        grid.setSize(grid.getPreferredSize());
+        Rectangle view = new Rectangle(0, 0, grid.getWidth(), Math.min(grid.getHeight(), HEIGHT));
+        BufferedImage incremental = new BufferedImage(view.width, view.height, BufferedImage.TYPE_INT_RGB);
+        BufferedImage full = new BufferedImage(view.width, view.height, BufferedImage.TYPE_INT_RGB);
+        paint(grid, incremental, view);
+
+        // on-screen slots holding a stack of 5 potions; the starting items fill slots 0-3
+        List<Integer> targets = new ArrayList<>();
+        for (int i = 4; i < slotCount; i++) {
+            Rectangle cell = grid.slotBounds(i);
+            if (cell != null && view.contains(cell)) targets.add(i);
+        }
+        int[] left = new int[slotCount];
+        Arrays.fill(left, 5);
+
+        long worst = 0;
+        int previous = -1;
+        start = System.nanoTime();
+        for (int n = 0; n < ACTIONS; n++) {
+            int slot = targets.get(n % targets.size());
+            long t = System.nanoTime();
+            inventory.selectSlot(slot);
+            inventory.useItem();
+            if (--left[slot] == 0) {
+                inventory.addItem("potion_red", 5);
+                left[slot] = 5;
+            }
+            // the cell losing the selection outline is dirty too
+            if (previous >= 0) paint(grid, incremental, grid.slotBounds(previous));
+            paint(grid, incremental, grid.slotBounds(slot));
+            previous = slot;
+            worst = Math.max(worst, System.nanoTime() - t);
+        }
+        double actionUs = (System.nanoTime() - start) / 1000.0 / ACTIONS;
+
+        start = System.nanoTime();
+        int reps = 200;
+        for (int n = 0; n < reps; n++) {
+            paint(grid, full, view);
+        }
+        double fullUs = (System.nanoTime() - start) / 1000.0 / reps;
+
+        System.out.printf("%5d slots: open %6.1f ms, action + dirty paint %6.1f us (worst %5.2f ms), "
+                        + "full grid repaint %6.1f us, differing pixels %d%n",
+                slotCount, openMs, actionUs, worst / 1e6, fullUs, compare(incremental, full));
+    }
+
+    private static void paint(InventoryGrid grid, BufferedImage target, Rectangle clip) {
+        Graphics2D g = target.createGraphics();
+        g.setClip(clip);
+        grid.paint(g);
+        g.dispose();
+    }
+
+    private static List<InventoryGrid> grids(Container c, List<InventoryGrid> found) {
+        for (Component child : c.getComponents()) {
+            if (child instanceof InventoryGrid) found.add((InventoryGrid) child);
+            if (child instanceof Container) grids((Container) child, found);
+        }
+        return found;
+    }
+
+    // Nothing is showing headless, so lay the tree out by hand before painting it.
+    private static void layout(Container c) {
+        c.doLayout();
+        for (Component child : c.getComponents()) {
+            if (child instanceof Container) layout((Container) child);
+        }
+    }
+
+    private static long compare(BufferedImage a, BufferedImage b) {
+        long diff = 0;
+        for (int y = 0; y < a.getHeight(); y++) {
+            for (int x = 0; x < a.getWidth(); x++) {
+                if (a.getRGB(x, y) != b.getRGB(x, y)) diff++;
+            }
+        }
+        return diff;
+    }
+}
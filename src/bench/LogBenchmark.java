@@ -0,0 +1,55 @@
+package bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import log.Log;
+
+// Run with: java bench.LogBenchmark
+// Caller-side cost of one combat log line: println versus the ring logger, enabled and disabled.
+public class LogBenchmark {
+    private static final int EVENTS = 2_000_000;
+
+    public static void main(String[] args) throws IOException {
+        File printlnFile = File.createTempFile("println", ".log");
+        File ringFile = File.createTempFile("ring", ".log");
+        printlnFile.deleteOnExit();
+        ringFile.deleteOnExit();
+        System.setProperty("log.file", ringFile.getPath());
+        System.setProperty("log.level", "DEBUG");
+
+        try (PrintStream println = new PrintStream(new FileOutputStream(printlnFile), true)) {
+            for (int round = 0; round < 3; round++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < EVENTS; i++) {
+                    println.println("Enemy HP: " + (i & 511));
+                }
+                report("println          ", start);
+
+                Log.setLevel(Log.DEBUG);
+                start = System.nanoTime();
+                for (int i = 0; i < EVENTS; i++) {
+                    Log.debug("Enemy {} HP: {}", i & 15, i & 511);
+                }
+                report("ring, enabled    ", start);
+                Log.flush();
+
+                Log.setLevel(Log.INFO);
+                start = System.nanoTime();
+                for (int i = 0; i < EVENTS; i++) {
+                    Log.debug("Enemy {} HP: {}", i & 15, i & 511);
+                }
+                report("ring, disabled   ", start);
+            }
+        }
+        Log.setLevel(Log.INFO);
+        Log.info("ring log file: {} bytes", ringFile.length());
+        Log.flush();
+    }
+
+    private static void report(String name, long start) {
+        double ns = (System.nanoTime() - start) / (double) EVENTS;
+        System.out.printf("%s: %7.1f ns/event%n", name, ns);
+    }
+}
@@ -0,0 +1,95 @@
+package bench;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import tile.MapFile;
+
+// Run with: java bench.MapLoadBenchmark
+// Loads square maps of growing size from the old comma-separated text and from the
+// binary format, reporting time and bytes allocated per load.
+public class MapLoadBenchmark {
+    private static final int[] SIZES = { 37, 256, 1024, 4096 };
+    private static final int TILE_TYPES = 6;
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("maps");
+        Random random = new Random(1);
+        System.out.println("     size     text ms   text MB alloc    binary ms  binary MB alloc");
+
+        for (int size : SIZES) {
+            int[] tiles = new int[size * size];
+            for (int i = 0; i < tiles.length; i++) {
+                tiles[i] = random.nextInt(TILE_TYPES);
+            }
+            MapFile map = new MapFile(size, size, tiles);
+            Path txt = dir.resolve("map" + size + ".txt");
+            Path bin = dir.resolve("map" + size + ".bqm");
+            writeText(map, txt);
+            try (FileChannel out = FileChannel.open(bin, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                map.write(out);
+            }
+
+            int reps = Math.max(1, 4_000_000 / tiles.length);
+            double[] text = measure(reps, () -> {
+                try (Reader in = Files.newBufferedReader(txt, StandardCharsets.UTF_8)) {
+                    return MapFile.readText(in);
+                }
+            });
+            double[] binary = measure(reps, () -> {
+                try (FileChannel in = FileChannel.open(bin, StandardOpenOption.READ)) {
+                    return MapFile.read(in);
+                }
+            });
+            System.out.printf("%9s %11.3f %14.2f %12.3f %16.2f%n", size + "x" + size,
+                    text[0], text[1], binary[0], binary[1]);
+            Files.delete(txt);
+            Files.delete(bin);
+        }
+        Files.delete(dir);
+    }
+
+    private interface Load {
+        MapFile run() throws IOException;
+    }
+
+    // {ms per load, MB allocated per load}, after a warm-up pass
+    private static double[] measure(int reps, Load load) throws IOException {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        long check = 0;
+        for (int i = 0; i < reps; i++) {
+            check += load.run().tiles.length;
+        }
+        long allocated = threads.getThreadAllocatedBytes(id);
+        long start = System.nanoTime();
+        for (int i = 0; i < reps; i++) {
+            check += load.run().tiles.length;
+        }
+        double ms = (System.nanoTime() - start) / 1e6 / reps;
+        double mb = (threads.getThreadAllocatedBytes(id) - allocated) / 1e6 / reps;
+        if (check == 0) {
+            System.out.println("empty maps");
+        }
+        return new double[] { ms, mb };
+    }
+
+    private static void writeText(MapFile map, Path file) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int row = 0; row < map.rows; row++) {
+            for (int col = 0; col < map.cols; col++) {
+                if (col > 0) sb.append(',');
+                sb.append(map.get(col, row));
+            }
+            sb.append('\n');
+        }
+        Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
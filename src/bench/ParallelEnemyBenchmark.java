@@ -0,0 +1,94 @@
+package bench;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import entities.EnemyStore;
+import entities.Player;
+import input.KeyHandler;
+import maps.Map;
+
+// Run with: java bench.ParallelEnemyBenchmark
+// Runs the same world serially and in parallel, checks they stay identical after every tick,
+// and compares tick cost. The player stands in the middle of the horde, so enemies reach it,
+// attack in id order and kill it partway through, and the rest retreat.
+public class ParallelEnemyBenchmark {
+    private static final int WORLD_SIZE = 8192;
+    private static final int TICKS = 600;
+    private static final float TICK_SECONDS = 1f / 60;
+
+    public static void main(String[] args) {
+        Map map = new Map(null, null, 48);
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        if (pool.getParallelism() < 2) {
+            // the common pool would leave updateAllParallel stepping serially
+            System.out.println("WARNING: common pool parallelism " + pool.getParallelism()
+                    + " on " + Runtime.getRuntime().availableProcessors()
+                    + " CPU(s); checking with a 2-thread pool, timings show no speedup");
+            pool = new ForkJoinPool(2);
+        }
+        System.out.println("parallelism: " + pool.getParallelism());
+
+        boolean anyDeath = false;
+        for (int count = 5000; count <= 80000; count *= 2) {
+            EnemyStore serial = spawn(map, count);
+            EnemyStore parallel = spawn(map, count);
+            Player serialPlayer = new Player(WORLD_SIZE / 2, WORLD_SIZE / 2, new KeyHandler(), map, new Random(3));
+            Player parallelPlayer = new Player(WORLD_SIZE / 2, WORLD_SIZE / 2, new KeyHandler(), map, new Random(3));
+
+            long serialNanos = 0, parallelNanos = 0;
+            int deathTick = -1;
+            for (int t = 0; t < TICKS; t++) {
+                long start = System.nanoTime();
+                serial.updateAll(serialPlayer.getX(), serialPlayer.getY(), serialPlayer);
+                serialNanos += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                parallel.updateAllParallel(pool, parallelPlayer.getX(), parallelPlayer.getY(), parallelPlayer);
+                parallelNanos += System.nanoTime() - start;
+
+                // lets the hurt animation finish, so the next hit can land
+                serialPlayer.update(TICK_SECONDS);
+                parallelPlayer.update(TICK_SECONDS);
+                compare(t, serial, parallel, serialPlayer, parallelPlayer);
+                if (deathTick < 0 && !serialPlayer.isAlive()) {
+                    deathTick = t;
+                }
+            }
+            anyDeath |= deathTick >= 0;
+            System.out.printf("%,6d enemies: serial %.3f ms/tick, parallel %.3f ms/tick (identical every tick, %s)%n",
+                    count, serialNanos / 1e6 / TICKS, parallelNanos / 1e6 / TICKS,
+                    deathTick >= 0 ? "player killed at tick " + deathTick : "player alive, HP " + serialPlayer.getHp());
+        }
+        if (!anyDeath) {
+            throw new IllegalStateException("no run reached player death; the restore path went unchecked");
+        }
+    }
+
+    private static void compare(int tick, EnemyStore serial, EnemyStore parallel, Player serialPlayer, Player parallelPlayer) {
+        if (serialPlayer.getHp() != parallelPlayer.getHp() || serialPlayer.isAlive() != parallelPlayer.isAlive()
+                || serialPlayer.getX() != parallelPlayer.getX() || serialPlayer.getY() != parallelPlayer.getY()) {
+            throw new IllegalStateException("player diverged at tick " + tick + ": HP " + serialPlayer.getHp()
+                    + " vs " + parallelPlayer.getHp());
+        }
+        for (int i = 0; i < serial.size(); i++) {
+            if (serial.getX(i) != parallel.getX(i) || serial.getY(i) != parallel.getY(i)
+                    || serial.getHp(i) != parallel.getHp(i)
+                    || serial.isRetreating(i) != parallel.isRetreating(i)
+                    || Double.compare(serial.getVelocityX(i), parallel.getVelocityX(i)) != 0
+                    || Double.compare(serial.getVelocityY(i), parallel.getVelocityY(i)) != 0) {
+                throw new IllegalStateException("enemy " + i + " diverged at tick " + tick);
+            }
+        }
+    }
+
+    private static EnemyStore spawn(Map map, int count) {
+        Random rand = new Random(42);
+        EnemyStore enemies = new EnemyStore(map, count);
+        // damage rolls and retreat directions come from here
+        enemies.setRandom(new Random(7));
+        for (int i = 0; i < count; i++) {
+            enemies.spawn(rand.nextInt(WORLD_SIZE), rand.nextInt(WORLD_SIZE));
+        }
+        return enemies;
+    }
+}
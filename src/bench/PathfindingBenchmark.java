@@ -0,0 +1,181 @@
+package bench;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import maps.HierarchicalPathfinder;
+import maps.Map;
+import maps.MapLoader;
+import maps.NavGrid;
+
+// Run with: java -Djava.awt.headless=true bench.PathfindingBenchmark
+// Query cost of grid A*, HPA* and cached HPA* on the forest map, then the cost of
+// invalidating the graph as boulders come and go, checked against a fresh build.
+public class PathfindingBenchmark {
+    private static final int QUERIES = 2_000;
+    private static final int MIN_DISTANCE = 1_000;
+    private static final int ENTITY = 60;
+    // repeats stay inside the pathfinder's 512-entry cache
+    private static final int REPEATED = 256;
+
+    public static void main(String[] args) {
+        BufferedImage mapImage = MapLoader.loadMapImage("forest");
+        BufferedImage mask = loadMask(mapImage.getWidth(), mapImage.getHeight());
+        Map map = new Map(mapImage, mask, 48);
+        System.out.printf("forest map: %dx%d%n", map.getMapWidth(), map.getMapHeight());
+
+        long start = System.nanoTime();
+        HierarchicalPathfinder pathfinder = map.getPathfinder(ENTITY, ENTITY);
+        System.out.printf("cluster graph: %d entrance nodes, built in %.1f ms%n",
+                pathfinder.getNodeCount(), (System.nanoTime() - start) / 1_000_000.0);
+
+        NavGrid probe = new NavGrid(map, 16, ENTITY, ENTITY);
+        Random rand = new Random(11);
+        int[][] queries = new int[QUERIES][];
+        for (int i = 0; i < QUERIES; ) {
+            int sx = rand.nextInt(map.getMapWidth()), sy = rand.nextInt(map.getMapHeight());
+            int gx = rand.nextInt(map.getMapWidth()), gy = rand.nextInt(map.getMapHeight());
+            if (Math.hypot(gx - sx, gy - sy) < MIN_DISTANCE) continue;
+            if (!probe.isPassable(probe.cellAt(sx, sy)) || !probe.isPassable(probe.cellAt(gx, gy))) continue;
+            queries[i++] = new int[] { sx, sy, gx, gy };
+        }
+
+        for (int round = 0; round < 3; round++) {
+            pathfinder.clearCache();
+            long flatCells = 0, hpaCells = 0;
+            int flatFound = 0, hpaFound = 0;
+
+            start = System.nanoTime();
+            for (int[] q : queries) {
+                int[] path = pathfinder.findPathFlat(q[0], q[1], q[2], q[3]);
+                if (path != null) {
+                    flatFound++;
+                    flatCells += path.length;
+                }
+            }
+            double flatUs = (System.nanoTime() - start) / 1_000.0 / QUERIES;
+
+            start = System.nanoTime();
+            for (int[] q : queries) {
+                List<Point> path = pathfinder.findPath(q[0], q[1], q[2], q[3]);
+                if (path != null) {
+                    hpaFound++;
+                    hpaCells += path.size();
+                }
+            }
+            double hpaUs = (System.nanoTime() - start) / 1_000.0 / QUERIES;
+
+            pathfinder.clearCache();
+            for (int i = 0; i < REPEATED; i++) {
+                int[] q = queries[i];
+                pathfinder.findPath(q[0], q[1], q[2], q[3]);
+            }
+            start = System.nanoTime();
+            for (int i = 0; i < REPEATED; i++) {
+                int[] q = queries[i];
+                pathfinder.findPath(q[0], q[1], q[2], q[3]);
+            }
+            double cachedUs = (System.nanoTime() - start) / 1_000.0 / REPEATED;
+
+            System.out.printf("grid A*: %8.1f us/query, %d found%n", flatUs, flatFound);
+            System.out.printf("HPA*   : %8.1f us/query, %d found, %.2fx the A* path cells%n",
+                    hpaUs, hpaFound, hpaCells / (double) Math.max(1, flatCells));
+            System.out.printf("cached : %8.1f us/query%n", cachedUs);
+        }
+
+        invalidations(mapImage, mask, queries);
+    }
+
+    // A map whose collision can change at run time: the mask plus a set of boulders.
+    private static final class EditableMap extends Map {
+        final List<Rectangle> boulders = new ArrayList<>();
+
+        EditableMap(BufferedImage image, BufferedImage mask) {
+            super(image, mask, 48);
+        }
+
+        @Override
+        public boolean isWalkable(int x, int y, int width, int height) {
+            for (Rectangle b : boulders) {
+                if (b.intersects(x, y, width, height)) return false;
+            }
+            return super.isWalkable(x, y, width, height);
+        }
+    }
+
+    private static void invalidations(BufferedImage mapImage, BufferedImage mask, int[][] queries) {
+        for (int round = 0; round < 3; round++) {
+            EditableMap map = new EditableMap(mapImage, mask);
+            long start = System.nanoTime();
+            HierarchicalPathfinder live = map.getPathfinder(ENTITY, ENTITY);
+            double buildMs = (System.nanoTime() - start) / 1_000_000.0;
+
+            Random rand = new Random(17 + round);
+            int changes = 200;
+            long worst = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < changes; i++) {
+                Rectangle b;
+                if (i % 3 == 2) {
+                    b = map.boulders.remove(rand.nextInt(map.boulders.size()));
+                } else {
+                    b = new Rectangle(rand.nextInt(map.getMapWidth() - 80), rand.nextInt(map.getMapHeight() - 80),
+                            20 + rand.nextInt(60), 20 + rand.nextInt(60));
+                    map.boulders.add(b);
+                }
+                long t = System.nanoTime();
+                map.collisionChanged(b.x, b.y, b.width, b.height);
+                worst = Math.max(worst, System.nanoTime() - t);
+            }
+            double invalidateMs = (System.nanoTime() - start) / 1_000_000.0 / changes;
+
+            HierarchicalPathfinder fresh = new HierarchicalPathfinder(new NavGrid(map, 16, ENTITY, ENTITY), 16);
+            int mismatches = 0;
+            for (int[] q : queries) {
+                if (cost(live.findPath(q[0], q[1], q[2], q[3])) != cost(fresh.findPath(q[0], q[1], q[2], q[3]))) {
+                    mismatches++;
+                }
+            }
+            System.out.printf("invalidate: %.2f ms avg, %.2f ms worst (full graph build %.1f ms); "
+                    + "%d of %d paths differ from a fresh build%n",
+                    invalidateMs, worst / 1e6, buildMs, mismatches, queries.length);
+        }
+    }
+
+    // Path cost in the 10/14 step units, -1 when there is no path.
+    private static int cost(List<Point> path) {
+        if (path == null) return -1;
+        int cost = 0;
+        for (int i = 1; i < path.size(); i++) {
+            int dx = Math.abs(path.get(i).x - path.get(i - 1).x) / 16;
+            int dy = Math.abs(path.get(i).y - path.get(i - 1).y) / 16;
+            cost += 10 * Math.max(dx, dy) + 4 * Math.min(dx, dy);
+        }
+        return cost;
+    }
+
+    private static BufferedImage loadMask(int width, int height) {
+        if (MapLoader.class.getResource("/assets/tiles/forest_collision.png") != null) {
+            BufferedImage mask = MapLoader.loadCollisionMask("forest");
+            if (mask != null) return mask;
+        }
+        System.out.println("No forest collision mask, scattering random trees");
+        BufferedImage mask = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = mask.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.BLACK);
+        Random rand = new Random(5);
+        for (int i = 0; i < 90; i++) {
+            int size = 30 + rand.nextInt(60);
+            g.fillOval(rand.nextInt(width), rand.nextInt(height), size, size);
+        }
+        g.dispose();
+        return mask;
+    }
+}
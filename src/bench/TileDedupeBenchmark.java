@@ -0,0 +1,166 @@
+package bench;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import assets.AssetLoader;
+import maps.Map;
+import maps.MapLoader;
+import maps.TiledImage;
+
+// Run with: java -Djava.awt.headless=true bench.TileDedupeBenchmark
+// Heap and frame cost of a painted map held whole versus as deduplicated 48px tiles, and a
+// pixel-for-pixel check that both draw the same frame. The large map is painted from
+// map.png's own tiles in patches, the way a big outdoor area repeats its grass and paths.
+// First checks that a map loaded from a .tiles file leaves no decoded PNG behind after the
+// game's preload (needs the classes on disk, not in a jar).
+public class TileDedupeBenchmark {
+    private static final int TILE = 48;
+    private static final int TILES = 150; // 7200x7200 px
+    private static final int VIEW_W = 800;
+    private static final int VIEW_H = 600;
+    private static final int FRAMES = 2_000;
+
+    public static void main(String[] args) throws IOException {
+        checkPreload();
+
+        BufferedImage source = MapLoader.loadMapImage("map");
+        BufferedImage painted = paint(source);
+        long start = System.nanoTime();
+        TiledImage tiled = TiledImage.fromImage(painted, TILE);
+        double importMs = (System.nanoTime() - start) / 1e6;
+        System.out.printf("%dx%d painted map: %d of %d tiles unique, imported in %.0f ms%n",
+                painted.getWidth(), painted.getHeight(), tiled.getUniqueTiles(), tiled.getTileCount(), importMs);
+        System.out.printf("heap: %.1f MB whole, %.1f MB as tiles (%.1fx smaller)%n",
+                TiledImage.imageBytes(painted) / 1e6, tiled.getBytes() / 1e6,
+                TiledImage.imageBytes(painted) / (double) tiled.getBytes());
+
+        // what the game does instead: read the tiles TileImporter wrote at build time
+        Path file = Files.createTempFile("painted", ".tiles");
+        try {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                tiled.write(channel);
+            }
+            start = System.nanoTime();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                tiled = TiledImage.read(channel);
+            }
+            System.out.printf("loaded from a %.1f MB .tiles file in %.0f ms%n",
+                    Files.size(file) / 1e6, (System.nanoTime() - start) / 1e6);
+        } finally {
+            Files.delete(file);
+        }
+
+        Map whole = new Map(painted, null, TILE);
+        Map tiles = Map.fromTiles(tiled, null, TILE);
+        System.out.println("differing pixels over 50 random views: " + compare(whole, tiles));
+
+        BufferedImage screen = new BufferedImage(VIEW_W, VIEW_H, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = screen.createGraphics();
+        for (int round = 0; round < 3; round++) {
+            time("whole image", whole, g);
+            time("tiles      ", tiles, g);
+        }
+        g.dispose();
+    }
+
+    // Writes a throwaway map.tiles beside map.png, then loads the way Main and GameLoop do.
+    private static void checkPreload() throws IOException {
+        String png = "/assets/tiles/map.png";
+        URL url = TileDedupeBenchmark.class.getResource(png);
+        if (url == null || !"file".equals(url.getProtocol())) {
+            System.out.println("map.png is not a plain file, skipping the preload check");
+            return;
+        }
+        Path tiles;
+        try {
+            tiles = Paths.get(url.toURI()).resolveSibling("map.tiles");
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+        try (FileChannel channel = FileChannel.open(tiles, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            TiledImage.fromImage(ImageIO.read(url), TILE).write(channel);
+        }
+        try {
+            List<String> manifest = AssetLoader.discover(AssetLoader.IMAGE_ROOTS);
+            MapLoader.removeTiledMaps(manifest);
+            AssetLoader.preload(manifest, null).join();
+            MapLoader.loadMap("map", TILE);
+            System.out.printf("preloaded %d images; map.png decoded after loading map.tiles: %b%n",
+                    manifest.size(), AssetLoader.isCached(png));
+
+            // something else decoding the PNG first doesn't pin it either
+            AssetLoader.image(png);
+            MapLoader.loadMap("map", TILE);
+            System.out.println("map.png decoded after an explicit load and map.tiles: " + AssetLoader.isCached(png));
+        } finally {
+            Files.delete(tiles);
+        }
+    }
+
+    private static BufferedImage paint(BufferedImage source) {
+        int srcCols = source.getWidth() / TILE;
+        int srcRows = source.getHeight() / TILE;
+        BufferedImage out = new BufferedImage(TILES * TILE, TILES * TILE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        Random random = new Random(7);
+        int[] patch = new int[(TILES / 10 + 1) * (TILES / 10 + 1)];
+        for (int i = 0; i < patch.length; i++) {
+            patch[i] = random.nextInt(srcCols * srcRows);
+        }
+        for (int r = 0; r < TILES; r++) {
+            for (int c = 0; c < TILES; c++) {
+                int pick = random.nextInt(20) == 0 ? random.nextInt(srcCols * srcRows)
+                        : patch[(r / 10) * (TILES / 10 + 1) + c / 10];
+                int sx = (pick % srcCols) * TILE, sy = (pick / srcCols) * TILE;
+                g.drawImage(source, c * TILE, r * TILE, c * TILE + TILE, r * TILE + TILE,
+                        sx, sy, sx + TILE, sy + TILE, null);
+            }
+        }
+        g.dispose();
+        return out;
+    }
+
+    private static long compare(Map a, Map b) {
+        Random random = new Random(3);
+        BufferedImage ia = new BufferedImage(VIEW_W, VIEW_H, BufferedImage.TYPE_INT_RGB);
+        BufferedImage ib = new BufferedImage(VIEW_W, VIEW_H, BufferedImage.TYPE_INT_RGB);
+        int[] pa = new int[VIEW_W * VIEW_H];
+        int[] pb = new int[VIEW_W * VIEW_H];
+        long diff = 0;
+        for (int i = 0; i < 50; i++) {
+            int x = random.nextInt(a.getMapWidth()), y = random.nextInt(a.getMapHeight());
+            Graphics2D ga = ia.createGraphics();
+            a.render(ga, x, y, VIEW_W, VIEW_H);
+            ga.dispose();
+            Graphics2D gb = ib.createGraphics();
+            b.render(gb, x, y, VIEW_W, VIEW_H);
+            gb.dispose();
+            ia.getRGB(0, 0, VIEW_W, VIEW_H, pa, 0, VIEW_W);
+            ib.getRGB(0, 0, VIEW_W, VIEW_H, pb, 0, VIEW_W);
+            for (int p = 0; p < pa.length; p++) {
+                if (pa[p] != pb[p]) diff++;
+            }
+        }
+        return diff;
+    }
+
+    private static void time(String name, Map map, Graphics2D g) {
+        long start = System.nanoTime();
+        for (int frame = 0; frame < FRAMES; frame++) {
+            map.render(g, 1000 + frame * 4 % 5000, 1500, VIEW_W, VIEW_H);
+        }
+        System.out.printf("%s: %6.1f us/frame%n", name, (System.nanoTime() - start) / 1000.0 / FRAMES);
+    }
+}
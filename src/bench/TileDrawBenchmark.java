@@ -0,0 +1,54 @@
+package bench;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import tile.MapFile;
+import tile.TileManager;
+
+// Run with: java -Djava.awt.headless=true bench.TileDrawBenchmark
+// Frame cost of TileManager.draw panning an 800x600 camera over a 256x256-tile map,
+// one drawImage per tile versus blitting cached 16x16-tile chunks.
+public class TileDrawBenchmark {
+    private static final int MAP_TILES = 256;
+    private static final int FRAMES = 3_000;
+
+    public static void main(String[] args) {
+        TileManager tiles = new TileManager(null);
+        int[] ids = new int[MAP_TILES * MAP_TILES];
+        Random random = new Random(1);
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = random.nextInt(6);
+        }
+        tiles.setMap(new MapFile(MAP_TILES, MAP_TILES, ids));
+
+        BufferedImage screen = new BufferedImage(800, 600, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = screen.createGraphics();
+        for (int round = 0; round < 3; round++) {
+            tiles.setChunkCache(false);
+            run("per tile      ", tiles, g, false);
+            tiles.setChunkCache(true);
+            run("chunk cache   ", tiles, g, false);
+            tiles.setChunkCache(true);
+            run("cache + edits ", tiles, g, true);
+        }
+        g.dispose();
+    }
+
+    // The camera walks right at 4px a frame, like the player; edits change a visible tile every 10 frames.
+    private static void run(String name, TileManager tiles, Graphics2D g, boolean edits) {
+        long start = System.nanoTime();
+        for (int frame = 0; frame < FRAMES; frame++) {
+            int cameraX = 1000 + frame * 4;
+            int cameraY = 2000;
+            if (edits && frame % 10 == 0) {
+                int col = (cameraX + 400) / tiles.getTileSize();
+                int row = (cameraY + 300) / tiles.getTileSize();
+                tiles.setTile(col, row, (tiles.getTile(col, row) + 1) % 6);
+            }
+            tiles.draw(g, cameraX, cameraY, 800, 600);
+        }
+        double us = (System.nanoTime() - start) / 1000.0 / FRAMES;
+        System.out.printf("%s: %8.1f us/frame%n", name, us);
+    }
+}
@@ -0,0 +1,158 @@
+package bench;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import input.KeyHandler;
+import main.Simulation;
+import maps.ChunkedWorld;
+import maps.Collision;
+import maps.Map;
+import maps.WorldPacker;
+
+// Run with: java -Djava.awt.headless=true bench.WorldStreamBenchmark
+// 1. Checks streamed collision against the in-memory Collision on the same mask.
+// 2. Generates an 8192x8192 world on disk and times building a Simulation on it, which
+//    must not have to read the whole world for enemy navigation.
+// 3. Walks a camera across it in real time, counting chunks that were not resident when
+//    drawn, with and without prefetch.
+public class WorldStreamBenchmark {
+    private static final int WORLD = 8192;
+    private static final int CHUNK = 256;
+    private static final int CACHE_CHUNKS = 64;
+    private static final int VIEW_W = 800;
+    private static final int VIEW_H = 600;
+    private static final int FRAMES = 600;
+    private static final int WARMUP_FRAMES = 30;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path dir = Files.createTempDirectory("world");
+        try {
+            checkCollision(dir.resolve("check.world"));
+            Path file = dir.resolve("big.world");
+
+            long start = System.nanoTime();
+            WorldPacker.write(file, WORLD, WORLD, CHUNK, true, WorldStreamBenchmark::generate);
+            System.out.printf("wrote %dx%d world: %.0f MB on disk in %.0f ms%n", WORLD, WORLD,
+                    Files.size(file) / 1e6, (System.nanoTime() - start) / 1e6);
+            System.out.printf("as whole images it would need %.0f MB of heap (ARGB + summed-area table)%n",
+                    WORLD * (double) WORLD * 8 / 1e6);
+            for (int round = 0; round < 2; round++) {
+                buildSimulation(file);
+            }
+
+            // walking speed, then the kind of speed a dash or mount would reach
+            for (double speed : new double[] { 240, 960, 1920 }) {
+                walk(file, speed, false);
+                walk(file, speed, true);
+            }
+        } finally {
+            try (var files = Files.list(dir)) {
+                for (Path p : (Iterable<Path>) files::iterator) Files.delete(p);
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private static void buildSimulation(Path file) throws IOException {
+        ChunkedWorld world = new ChunkedWorld(file, CACHE_CHUNKS);
+        long start = System.nanoTime();
+        Simulation sim = new Simulation(new Map(world, 48), new KeyHandler());
+        double ms = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        for (int i = 0; i < 120; i++) {
+            sim.tick(1f / 60, 0);
+        }
+        System.out.printf("Simulation on the streamed world: built in %.0f ms, first 120 ticks %.0f ms | %s%n",
+                ms, (System.nanoTime() - start) / 1e6, world);
+        sim.shutdown();
+        world.close();
+    }
+
+    private static void walk(Path file, double speed, boolean prefetch) throws IOException, InterruptedException {
+        ChunkedWorld world = new ChunkedWorld(file, CACHE_CHUNKS);
+        BufferedImage screen = new BufferedImage(VIEW_W, VIEW_H, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = screen.createGraphics();
+
+        // a diagonal run with a turn halfway, starting somewhere cold
+        double x = 1000, y = 1000;
+        long frameNanos = 1_000_000_000L / 60;
+        long next = System.nanoTime();
+        int walkable = 0;
+        long coldMisses = 0;
+        for (int frame = 0; frame < FRAMES; frame++) {
+            if (frame == WARMUP_FRAMES) coldMisses = world.getPlaceholderDraws();
+            double vx = frame < FRAMES / 2 ? speed : 0;
+            double vy = speed * 0.7;
+            if (x + vx / 60 > WORLD - VIEW_W) vx = 0;
+            if (y + vy / 60 > WORLD - VIEW_H) vy = -vy;
+            x += vx / 60;
+            y += vy / 60;
+            int camX = (int) x, camY = (int) y;
+            if (prefetch) world.streamAround(camX, camY, VIEW_W, VIEW_H, vx, vy);
+            else world.streamAround(camX, camY, VIEW_W, VIEW_H, 0, 0);
+            world.render(g, camX, camY, VIEW_W, VIEW_H);
+            if (!world.isBlocked(camX + VIEW_W / 2, camY + VIEW_H / 2, 60, 60)) walkable++;
+
+            next += frameNanos;
+            long wait = next - System.nanoTime();
+            if (wait > 0) Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+        }
+        g.dispose();
+        System.out.printf("%5.0f px/s %-12s %4d chunks drawn missing after warm-up | %s; cap %.0f MB (%d walkable)%n",
+                speed, prefetch ? "prefetch:" : "no prefetch:", world.getPlaceholderDraws() - coldMisses, world,
+                world.getMaxResident() * (CHUNK * (double) CHUNK * 4.125) / 1e6, walkable);
+        world.close();
+    }
+
+    // grass with a scatter of dark boulders that also block
+    private static void generate(int x, int y, int w, int h, int[] argb, long[] blocked) {
+        Random r = new Random(x * 31L + y);
+        for (int ly = 0; ly < h; ly++) {
+            for (int lx = 0; lx < w; lx++) {
+                argb[ly * CHUNK + lx] = 0xFF228B22 ^ ((lx ^ ly) & 7);
+            }
+        }
+        for (int i = 0; i < 6; i++) {
+            int bx = r.nextInt(Math.max(1, w - 40)), by = r.nextInt(Math.max(1, h - 40));
+            for (int ly = by; ly < Math.min(h, by + 40); ly++) {
+                for (int lx = bx; lx < Math.min(w, bx + 40); lx++) {
+                    int p = ly * CHUNK + lx;
+                    argb[p] = 0xFF555555;
+                    blocked[p >>> 6] |= 1L << p;
+                }
+            }
+        }
+    }
+
+    private static void checkCollision(Path file) throws IOException {
+        BufferedImage image = new BufferedImage(2048, 1536, BufferedImage.TYPE_INT_RGB);
+        BufferedImage mask = new BufferedImage(2048, 1536, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = mask.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 2048, 1536);
+        g.setColor(Color.BLACK);
+        Random rand = new Random(3);
+        for (int i = 0; i < 300; i++) {
+            g.fillRect(rand.nextInt(2048), rand.nextInt(1536), 5 + rand.nextInt(90), 5 + rand.nextInt(90));
+        }
+        g.dispose();
+
+        WorldPacker.write(file, 2048, 1536, CHUNK, true, WorldPacker.fromImages(image, mask, CHUNK));
+        Collision collision = new Collision(mask);
+        ChunkedWorld world = new ChunkedWorld(file, 8);
+        int mismatches = 0, queries = 200_000;
+        for (int i = 0; i < queries; i++) {
+            int x = rand.nextInt(2200) - 100, y = rand.nextInt(1700) - 100;
+            int w = 1 + rand.nextInt(300), h = 1 + rand.nextInt(120);
+            if (collision.isBlocked(x, y, w, h) != world.isBlocked(x, y, w, h)) mismatches++;
+        }
+        System.out.printf("collision check: %d mismatches in %d queries with 8 of 48 chunks resident%n",
+                mismatches, queries);
+        world.close();
+    }
+}
@@ -0,0 +1,65 @@
+package entities;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Decoded once per archetype and size, then shared by every enemy of that kind.
+public class EnemySprites {
+    public static final int IDLE = 0;
+    public static final int WALK = 1;
+    public static final int ATTACK = 2;
+
+    private static final String ENEMY_DIR = "/assets/characters/enemies/";
+    private static final ConcurrentHashMap<String, EnemySprites> registry = new ConcurrentHashMap<>();
+
+    // [animation][0 = facing right, 1 = facing left][frame]
+    private final BufferedImage[][][] frames = new BufferedImage[3][2][];
+
+    public static EnemySprites get(String archetype, int width, int height) {
+        return registry.computeIfAbsent(archetype + "@" + width + "x" + height,
+                key -> new EnemySprites(archetype, width, height));
+    }
+
+    private EnemySprites(String archetype, int width, int height) {
+        switch (archetype) {
+            case "golem":
+                load(IDLE, width, height, ENEMY_DIR + "enemy_idle.png");
+                load(WALK, width, height, numbered(ENEMY_DIR + "Golem_01_Walking_%03d.png", 18));
+                load(ATTACK, width, height, numbered(ENEMY_DIR + "Golem_01_Attacking_%03d.png", 12));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown enemy archetype: " + archetype);
+        }
+    }
+
+    private static String[] numbered(String pattern, int count) {
+        String[] paths = new String[count];
+        for (int i = 0; i < count; i++) {
+            paths[i] = String.format(pattern, i);
+        }
+        return paths;
+    }
+
+    private void load(int animation, int width, int height, String... paths) {
+        BufferedImage[] right = new BufferedImage[paths.length];
+        BufferedImage[] left = new BufferedImage[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            BufferedImage src = Sprites.load(paths[i]);
+            if (src == null) {
+                System.err.println("Missing enemy sprite: " + paths[i]);
+            }
+            right[i] = Sprites.bake(src, width, height, false);
+            left[i] = Sprites.bake(src, width, height, true);
+        }
+        frames[animation][0] = right;
+        frames[animation][1] = left;
+    }
+
+    public BufferedImage frame(int animation, boolean facingLeft, int index) {
+        return frames[animation][facingLeft ? 1 : 0][index];
+    }
+
+    public int frameCount(int animation) {
+        return frames[animation][0].length;
+    }
+}
@@ -0,0 +1,463 @@
+package entities;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import log.Log;
+import maps.FlowField;
+import maps.Map;
+
+// All enemy state lives here in parallel arrays indexed by enemy id; Enemy is just a handle.
+public class EnemyStore {
+    private static final String ARCHETYPE = "golem";
+
+    private static final byte ALIVE = 1;
+    private static final byte FACING_LEFT = 2;
+    private static final byte ATTACKING = 4;
+    private static final byte RETREATING = 8;
+
+    public final int width = 60;
+    public final int height = 60;
+    private final int maxHp = 400;
+    private final double speed = 0.8;
+    private final int attackDamage = 10;
+    private final int frameDelay = 10;
+    private final int attackFrameDelay = 4;
+    private final double RETREAT_SPEED_MULTIPLIER = 0.5;
+
+    // below this the fork/join overhead costs more than it saves
+    public static final int PARALLEL_THRESHOLD = 2048;
+    private static final int CHUNK_SIZE = 512;
+
+    private final Map currentMap;
+    private FlowField flowField;
+    private Random random = new Random();
+    // drawn from random once per tick; per-enemy rolls during the parallel step hash it with the id
+    private long tickSeed;
+    private final EnemySprites sprites;
+    private final int walkFrameCount;
+    private final int attackFrameCount;
+
+    private int count;
+    private Enemy[] handles;
+    private double[] x, y, prevX, prevY, vx, vy;
+    private int[] hp;
+    private int[] walkFrame, frameTimer;
+    private int[] attackFrame, attackFrameTimer, attackCooldown;
+    private byte[] flags;
+    private byte[] spriteAnimation;
+    private byte[] spriteFrame;
+
+    // scratch for the parallel phase: pre-tick copies and per-enemy attack intents
+    private boolean[] attackIntent;
+    private double[] backupX, backupY, backupVx, backupVy;
+    private int[] backupWalkFrame, backupFrameTimer;
+    private int[] backupAttackFrame, backupAttackFrameTimer, backupAttackCooldown;
+    private byte[] backupFlags, backupSpriteAnimation, backupSpriteFrame;
+
+    public EnemyStore(Map map, int initialCapacity) {
+        this.currentMap = map;
+        this.sprites = EnemySprites.get(ARCHETYPE, width, height);
+        this.walkFrameCount = sprites.frameCount(EnemySprites.WALK);
+        this.attackFrameCount = sprites.frameCount(EnemySprites.ATTACK);
+        allocate(Math.max(1, initialCapacity));
+    }
+
+    private void allocate(int capacity) {
+        handles = handles == null ? new Enemy[capacity] : Arrays.copyOf(handles, capacity);
+        x = grow(x, capacity);
+        y = grow(y, capacity);
+        prevX = grow(prevX, capacity);
+        prevY = grow(prevY, capacity);
+        vx = grow(vx, capacity);
+        vy = grow(vy, capacity);
+        hp = grow(hp, capacity);
+        walkFrame = grow(walkFrame, capacity);
+        frameTimer = grow(frameTimer, capacity);
+        attackFrame = grow(attackFrame, capacity);
+        attackFrameTimer = grow(attackFrameTimer, capacity);
+        attackCooldown = grow(attackCooldown, capacity);
+        flags = grow(flags, capacity);
+        spriteAnimation = grow(spriteAnimation, capacity);
+        spriteFrame = grow(spriteFrame, capacity);
+
+        attackIntent = attackIntent == null ? new boolean[capacity] : Arrays.copyOf(attackIntent, capacity);
+        backupX = grow(backupX, capacity);
+        backupY = grow(backupY, capacity);
+        backupVx = grow(backupVx, capacity);
+        backupVy = grow(backupVy, capacity);
+        backupWalkFrame = grow(backupWalkFrame, capacity);
+        backupFrameTimer = grow(backupFrameTimer, capacity);
+        backupAttackFrame = grow(backupAttackFrame, capacity);
+        backupAttackFrameTimer = grow(backupAttackFrameTimer, capacity);
+        backupAttackCooldown = grow(backupAttackCooldown, capacity);
+        backupFlags = grow(backupFlags, capacity);
+        backupSpriteAnimation = grow(backupSpriteAnimation, capacity);
+        backupSpriteFrame = grow(backupSpriteFrame, capacity);
+    }
+
+    private static double[] grow(double[] a, int n) { return a == null ? new double[n] : Arrays.copyOf(a, n); }
+    private static int[] grow(int[] a, int n) { return a == null ? new int[n] : Arrays.copyOf(a, n); }
+    private static byte[] grow(byte[] a, int n) { return a == null ? new byte[n] : Arrays.copyOf(a, n); }
+
+    public Enemy spawn(int spawnX, int spawnY) {
+        if (count == handles.length) {
+            allocate(count * 2);
+        }
+        int i = count++;
+        x[i] = spawnX;
+        y[i] = spawnY;
+        prevX[i] = spawnX;
+        prevY[i] = spawnY;
+        vx[i] = 0;
+        vy[i] = 0;
+        hp[i] = maxHp;
+        walkFrame[i] = 0;
+        frameTimer[i] = 0;
+        attackFrame[i] = 0;
+        attackFrameTimer[i] = 0;
+        attackCooldown[i] = 0;
+        flags[i] = ALIVE;
+        spriteAnimation[i] = -1;
+        spriteFrame[i] = 0;
+        handles[i] = new Enemy(this, i);
+        return handles[i];
+    }
+
+    // Chasers follow the field when set; without one they walk straight at the player.
+    public void setFlowField(FlowField flowField) {
+        this.flowField = flowField;
+    }
+
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
+    public void clear() {
+        Arrays.fill(handles, 0, count, null);
+        count = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public Enemy get(int i) {
+        return handles[i];
+    }
+
+    public void savePreviousPositions() {
+        System.arraycopy(x, 0, prevX, 0, count);
+        System.arraycopy(y, 0, prevY, 0, count);
+    }
+
+    public void updateAll(int playerX, int playerY, Player player) {
+        tickSeed = random.nextLong();
+        for (int i = 0; i < count; i++) {
+            update(i, playerX, playerY, player);
+        }
+    }
+
+    // Same result as updateAll, bit for bit. Enemies only touch their own slots while
+    // stepping, so chunks run in parallel against the tick-start player state; the
+    // only cross-enemy effect, damage to the player, is applied afterwards in id order.
+    // On one CPU it steps serially unless handed a pool that was asked for more threads.
+    public void updateAllParallel(ForkJoinPool pool, int playerX, int playerY, Player player) {
+        if (count < PARALLEL_THRESHOLD
+                || (Runtime.getRuntime().availableProcessors() < 2 && pool.getParallelism() < 2)) {
+            updateAll(playerX, playerY, player);
+            return;
+        }
+
+        tickSeed = random.nextLong();
+        boolean playerAlive = player.isAlive();
+        pool.invoke(new StepChunk(0, count, playerX, playerY, playerAlive));
+
+        for (int i = 0; i < count; i++) {
+            if (!attackIntent[i]) continue;
+            applyAttack(player);
+            if (playerAlive && !player.isAlive()) {
+                // serially, everyone after the killing blow would already see a dead player
+                for (int j = i + 1; j < count; j++) {
+                    restore(j);
+                    update(j, playerX, playerY, player);
+                }
+                return;
+            }
+        }
+    }
+
+    private class StepChunk extends RecursiveAction {
+        private final int from, to;
+        private final int playerX, playerY;
+        private final boolean playerAlive;
+
+        StepChunk(int from, int to, int playerX, int playerY, boolean playerAlive) {
+            this.from = from;
+            this.to = to;
+            this.playerX = playerX;
+            this.playerY = playerY;
+            this.playerAlive = playerAlive;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK_SIZE) {
+                for (int i = from; i < to; i++) {
+                    backup(i);
+                    attackIntent[i] = step(i, playerX, playerY, playerAlive);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new StepChunk(from, mid, playerX, playerY, playerAlive),
+                      new StepChunk(mid, to, playerX, playerY, playerAlive));
+        }
+    }
+
+    private void backup(int i) {
+        backupX[i] = x[i];
+        backupY[i] = y[i];
+        backupVx[i] = vx[i];
+        backupVy[i] = vy[i];
+        backupWalkFrame[i] = walkFrame[i];
+        backupFrameTimer[i] = frameTimer[i];
+        backupAttackFrame[i] = attackFrame[i];
+        backupAttackFrameTimer[i] = attackFrameTimer[i];
+        backupAttackCooldown[i] = attackCooldown[i];
+        backupFlags[i] = flags[i];
+        backupSpriteAnimation[i] = spriteAnimation[i];
+        backupSpriteFrame[i] = spriteFrame[i];
+    }
+
+    private void restore(int i) {
+        x[i] = backupX[i];
+        y[i] = backupY[i];
+        vx[i] = backupVx[i];
+        vy[i] = backupVy[i];
+        walkFrame[i] = backupWalkFrame[i];
+        frameTimer[i] = backupFrameTimer[i];
+        attackFrame[i] = backupAttackFrame[i];
+        attackFrameTimer[i] = backupAttackFrameTimer[i];
+        attackCooldown[i] = backupAttackCooldown[i];
+        flags[i] = backupFlags[i];
+        spriteAnimation[i] = backupSpriteAnimation[i];
+        spriteFrame[i] = backupSpriteFrame[i];
+    }
+
+    public void update(int i, int playerX, int playerY, Player player) {
+        if (step(i, playerX, playerY, player.isAlive())) {
+            applyAttack(player);
+        }
+    }
+
+    private void applyAttack(Player player) {
+        Log.debug("Enemy attacking");
+        int minEnemyDamage = 5;
+        int maxEnemyDamage = attackDamage + 5;
+        int randomizedDamage = minEnemyDamage + random.nextInt(maxEnemyDamage - minEnemyDamage + 1);
+        player.takeDamage(randomizedDamage);
+    }
+
+    // Advances one enemy using only its own slots; returns true when it starts an attack.
+    private boolean step(int i, int playerX, int playerY, boolean playerAlive) {
+        if ((flags[i] & ALIVE) == 0) return false;
+        vx[i] = 0;
+        vy[i] = 0;
+
+        if (!playerAlive) {
+            flags[i] |= RETREATING;
+
+            double dx = x[i] - playerX;
+            double dy = y[i] - playerY;
+            double dist = Math.sqrt(dx * dx + dy * dy);
+
+            if (dist > 0.1) {
+                double moveX = (dx / dist) * speed * RETREAT_SPEED_MULTIPLIER;
+                double moveY = (dy / dist) * speed * RETREAT_SPEED_MULTIPLIER;
+                moveAxes(i, moveX, moveY);
+                setFlag(i, FACING_LEFT, dx < 0);
+                advanceWalkFrame(i);
+            } else {
+                double angle = roll(i) * 2 * Math.PI;
+                double moveX = speed * RETREAT_SPEED_MULTIPLIER * Math.cos(angle);
+                double moveY = speed * RETREAT_SPEED_MULTIPLIER * Math.sin(angle);
+
+                int nextX = (int) (x[i] + moveX);
+                int nextY = (int) (y[i] + moveY);
+                if (currentMap.isWalkable(nextX, nextY, width, height)) {
+                    x[i] += moveX;
+                    y[i] += moveY;
+                    vx[i] = moveX;
+                    vy[i] = moveY;
+                }
+            }
+            return false;
+        }
+        flags[i] &= ~RETREATING;
+
+        double dx = playerX - x[i];
+        double dy = playerY - y[i];
+        double dist = Math.sqrt(dx * dx + dy * dy);
+
+        setFlag(i, FACING_LEFT, dx < 0);
+        boolean attacking = (flags[i] & ATTACKING) != 0;
+        boolean startedAttack = false;
+
+        if (dist > 10 && !attacking) {
+            double dirX = dx / dist;
+            double dirY = dy / dist;
+            // the field is NONE in the player's own cell and where it can't reach
+            int dir = flowField != null ? flowField.directionAt((int) x[i], (int) y[i]) : FlowField.NONE;
+            if (dir != FlowField.NONE) {
+                dirX = FlowField.dirX(dir);
+                dirY = FlowField.dirY(dir);
+            }
+            moveAxes(i, dirX * speed, dirY * speed);
+            advanceWalkFrame(i);
+        } else {
+            if (!attacking && attackCooldown[i] <= 0) {
+                attacking = true;
+                flags[i] |= ATTACKING;
+                attackFrame[i] = 0;
+                attackCooldown[i] = 90;
+                startedAttack = true;
+            }
+
+            if (attacking) {
+                attackFrameTimer[i]++;
+                if (attackFrameTimer[i] >= attackFrameDelay) {
+                    attackFrame[i]++;
+                    attackFrameTimer[i] = 0;
+
+                    if (attackFrame[i] >= attackFrameCount) {
+                        attackFrame[i] = 0;
+                        attacking = false;
+                        flags[i] &= ~ATTACKING;
+                    }
+                }
+
+                if (attacking) {
+                    showFrame(i, EnemySprites.ATTACK, attackFrame[i]);
+                }
+            } else {
+                showFrame(i, EnemySprites.IDLE, 0);
+                if (attackCooldown[i] > 0) {
+                    attackCooldown[i]--;
+                }
+            }
+        }
+        return startedAttack;
+    }
+
+    // Uniform in [0, 1) from the tick seed and the enemy id alone, so it doesn't matter
+    // which thread steps the enemy or in what order (SplitMix64 finalizer).
+    private double roll(int i) {
+        long z = tickSeed + (i + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (z >>> 11) * 0x1.0p-53;
+    }
+
+    // Each axis is tried on its own so enemies slide along walls.
+    private void moveAxes(int i, double moveX, double moveY) {
+        int nextX = (int) (x[i] + moveX);
+        if (currentMap.isWalkable(nextX, (int) y[i], width, height)) {
+            x[i] += moveX;
+            vx[i] = moveX;
+        }
+
+        int nextY = (int) (y[i] + moveY);
+        if (currentMap.isWalkable((int) x[i], nextY, width, height)) {
+            y[i] += moveY;
+            vy[i] = moveY;
+        }
+    }
+
+    private void advanceWalkFrame(int i) {
+        frameTimer[i]++;
+        if (frameTimer[i] >= frameDelay) {
+            walkFrame[i] = (walkFrame[i] + 1) % walkFrameCount;
+            frameTimer[i] = 0;
+        }
+        showFrame(i, EnemySprites.WALK, walkFrame[i]);
+    }
+
+    private void showFrame(int i, int animation, int frame) {
+        spriteAnimation[i] = (byte) animation;
+        spriteFrame[i] = (byte) frame;
+    }
+
+    private void setFlag(int i, byte flag, boolean on) {
+        if (on) flags[i] |= flag;
+        else flags[i] &= ~flag;
+    }
+
+    public void draw(Graphics g, int i, int screenX, int screenY) {
+        if ((flags[i] & ALIVE) == 0) return;
+
+        if (spriteAnimation[i] >= 0) {
+            boolean facingLeft = (flags[i] & FACING_LEFT) != 0;
+            g.drawImage(sprites.frame(spriteAnimation[i], facingLeft, spriteFrame[i]), screenX, screenY, null);
+        }
+
+        g.setColor(Color.WHITE);
+        g.fillRect(screenX, screenY - 10, width, 5);
+        g.setColor(Color.GREEN);
+        g.fillRect(screenX, screenY - 10, (int) (width * (hp[i] / (double) maxHp)), 5);
+    }
+
+    public void takeDamage(int i, int amount) {
+        hp[i] -= amount;
+        if (hp[i] <= 0) {
+            flags[i] &= ~ALIVE;
+            Log.info("Enemy {} defeated", i);
+        }
+        Log.debug("Enemy {} HP: {}", i, hp[i]);
+    }
+
+    public boolean intersects(int i, int bx, int by, int bw, int bh) {
+        int ex = (int) x[i];
+        int ey = (int) y[i];
+        return bx < ex + width && ex < bx + bw && by < ey + height && ey < by + bh;
+    }
+
+    public boolean isAlive(int i) {
+        return (flags[i] & ALIVE) != 0;
+    }
+
+    public boolean isRetreating(int i) {
+        return (flags[i] & RETREATING) != 0;
+    }
+
+    public int getHp(int i) {
+        return hp[i];
+    }
+
+    public int getX(int i) {
+        return (int) x[i];
+    }
+
+    public int getY(int i) {
+        return (int) y[i];
+    }
+
+    public double getVelocityX(int i) {
+        return vx[i];
+    }
+
+    public double getVelocityY(int i) {
+        return vy[i];
+    }
+
+    public int getRenderX(int i, float alpha) {
+        return (int) (prevX[i] + (x[i] - prevX[i]) * alpha);
+    }
+
+    public int getRenderY(int i, float alpha) {
+        return (int) (prevY[i] + (y[i] - prevY[i]) * alpha);
+    }
+}
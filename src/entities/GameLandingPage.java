@@ -7,8 +7,8 @@ import java.awt.event.*;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
-import javax.imageio.ImageIO;
 import javax.swing.*;
+import assets.AssetLoader;
 
 public class GameLandingPage extends JPanel implements ActionListener, MouseListener, MouseMotionListener {
 
@@ -31,6 +31,9 @@ public class GameLandingPage extends JPanel implements ActionListener, MouseList
     private boolean swordUp = true;
     private Runnable onPlay;
 
+    private int loadedAssets = 0;
+    private int totalAssets = 0;
+
     public GameLandingPage(Runnable onPlay) {
         this.onPlay = onPlay;
         setPreferredSize(new Dimension(800, 600));
@@ -49,26 +52,29 @@ public class GameLandingPage extends JPanel implements ActionListener, MouseList
     }
 
     private void loadAssets() {
-        try {
-            background = ImageIO.read(getClass().getResourceAsStream("/assets/ui/background.png"));
-        } catch (Exception e) {
-            background = null;
-            System.err.println("background.png not found in /com/darkcastle/assets/");
+        background = AssetLoader.image("/assets/ui/background.png");
+        if (background == null) {
+            System.err.println("background.png not found in /assets/ui/");
         }
-        try {
-            cloud = ImageIO.read(getClass().getResourceAsStream("/assets/ui/clouds.png"));
-        } catch (Exception e) {
-            cloud = null;
-            System.err.println("clouds.png not found in /com/darkcastle/assets/");
+        cloud = AssetLoader.image("/assets/ui/clouds.png");
+        if (cloud == null) {
+            System.err.println("clouds.png not found in /assets/ui/");
         }
-        try {
-            sword = ImageIO.read(getClass().getResourceAsStream("/assets/ui/sword.png"));
-        } catch (Exception e) {
-            sword = null;
-            System.err.println("sword.png not found in /com/darkcastle/assets/");
+        sword = AssetLoader.image("/assets/ui/sword.png");
+        if (sword == null) {
+            System.err.println("sword.png not found in /assets/ui/");
         }
     }
 
+    // Safe to call from any thread; the bar under PLAY disappears once everything is in.
+    public void setLoadingProgress(int loaded, int total) {
+        SwingUtilities.invokeLater(() -> {
+            loadedAssets = loaded;
+            totalAssets = total;
+            repaint();
+        });
+    }
+
     @Override
     public void actionPerformed(ActionEvent e) {
         for (Point p : clouds) {
@@ -184,6 +190,20 @@ public class GameLandingPage extends JPanel implements ActionListener, MouseList
         int tx2 = bx + (120 - fm.stringWidth(text)) / 2;
         int ty2 = by + ((40 - fm.getHeight()) / 2) + fm.getAscent();
         g.drawString(text, tx2, ty2);
+
+        if (totalAssets > 0 && loadedAssets < totalAssets) {
+            int barY = by + 56;
+            int filled = (int) (120L * loadedAssets / totalAssets);
+            g.setColor(new Color(0, 0, 0, 150));
+            g.fillRoundRect(bx, barY, 120, 8, 6, 6);
+            g.setColor(new Color(255, 210, 120));
+            g.fillRoundRect(bx, barY, filled, 8, 6, 6);
+            g.setFont(new Font("Arial", Font.PLAIN, 12));
+            g.setColor(Color.WHITE);
+            String status = "Loading " + loadedAssets + "/" + totalAssets;
+            g.drawString(status, bx + (120 - g.getFontMetrics().stringWidth(status)) / 2, barY + 24);
+        }
+
         if (flashAlpha > 0f) {
             g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, flashAlpha));
             g.setColor(Color.WHITE);
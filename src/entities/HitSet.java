@@ -0,0 +1,27 @@
+package entities;
+
+import java.util.Arrays;
+
+// Which enemy ids an attack has already damaged, one bit per id.
+public class HitSet {
+    private long[] bits = new long[2];
+
+    public boolean contains(int id) {
+        if (id < 0) return false;
+        int word = id >>> 6;
+        return word < bits.length && (bits[word] & (1L << id)) != 0;
+    }
+
+    public void add(int id) {
+        if (id < 0) return;
+        int word = id >>> 6;
+        if (word >= bits.length) {
+            bits = Arrays.copyOf(bits, Math.max(word + 1, bits.length * 2));
+        }
+        bits[word] |= 1L << id;
+    }
+
+    public void clear() {
+        Arrays.fill(bits, 0L);
+    }
+}
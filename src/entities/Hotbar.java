@@ -1,11 +1,20 @@
 package entities;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
 import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 import java.util.List;
 
 public class Hotbar {
 
+    private static final Font KEY_FONT = new Font("Arial", Font.BOLD, 12);
+    private static final String[] KEYS = {"", "", "B", "N", "M"};
+    // room above the bar for the key labels
+    private static final int LABEL_SPACE = 18;
+
     private final int screenWidth;
     private final int screenHeight;
     private final InventoryUI inventory;
@@ -16,6 +25,11 @@ public class Hotbar {
     private final int hotbarX;
     private final int hotbarY;
 
+    // The bar, icons and labels are drawn once into this and blitted every frame.
+    private BufferedImage overlay;
+    private int overlayVersion = -1;
+    private boolean cached = true;
+
     public Hotbar(int screenWidth, int screenHeight, InventoryUI inventory) {
         this.screenWidth = screenWidth;
         this.screenHeight = screenHeight;
@@ -25,20 +39,60 @@ public class Hotbar {
     }
 
     public void draw(Graphics2D g2d) {
+        if (!cached) {
+            drawBar(g2d, hotbarX, hotbarY);
+            return;
+        }
+        int version = inventory.getVersion();
+        if (overlay == null || version != overlayVersion) {
+            rebuildOverlay();
+            overlayVersion = version;
+        }
+        g2d.drawImage(overlay, hotbarX, hotbarY - LABEL_SPACE, null);
+    }
+
+    private void rebuildOverlay() {
+        if (overlay == null) {
+            // +1 for the right and bottom edges of the slot outlines
+            overlay = Sprites.createCompatibleImage(hotbarWidth + 1, LABEL_SPACE + hotbarHeight + 1);
+        }
+        Graphics2D g = overlay.createGraphics();
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(0, 0, overlay.getWidth(), overlay.getHeight());
+        g.setComposite(AlphaComposite.SrcOver);
+        drawBar(g, 0, LABEL_SPACE);
+        g.dispose();
+    }
+
+    private void drawBar(Graphics2D g2d, int x, int y) {
         g2d.setColor(new Color(0, 0, 0, 150));
-        g2d.fillRect(hotbarX, hotbarY, hotbarWidth, hotbarHeight);
+        g2d.fillRect(x, y, hotbarWidth, hotbarHeight);
 
         g2d.setColor(Color.GRAY);
         for (int i = 0; i < numSlots; i++) {
-            g2d.drawRect(hotbarX + i * slotSize, hotbarY, slotSize, slotSize);
+            g2d.drawRect(x + i * slotSize, y, slotSize, slotSize);
         }
 
         List<InventoryUI.Slot> slots = inventory.getInventorySlots();
         for (int i = 0; i < numSlots && i < slots.size(); i++) {
             InventoryUI.Slot slot = slots.get(i);
             if (slot.item != null) {
-                g2d.drawImage(slot.item.getIcon().getImage(), hotbarX + i * slotSize, hotbarY, slotSize, slotSize, null);
+                g2d.drawImage(slot.item.getIcon().getImage(), x + i * slotSize, y, slotSize, slotSize, null);
             }
         }
+
+        g2d.setColor(Color.WHITE);
+        g2d.setFont(KEY_FONT);
+        FontMetrics fm = g2d.getFontMetrics();
+        for (int i = 2; i < numSlots; i++) {
+            int labelX = x + i * slotSize + (slotSize - fm.stringWidth(KEYS[i])) / 2;
+            g2d.drawString(KEYS[i], labelX, y - 5);
+        }
+    }
+
+    // Off draws everything straight to the frame, as before the overlay; kept for comparison.
+    public void setCached(boolean cached) {
+        this.cached = cached;
+        overlay = null;
     }
 }
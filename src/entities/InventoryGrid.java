@@ -0,0 +1,233 @@
+package entities;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.ImageIcon;
+import javax.swing.JComponent;
+
+// One tab of the inventory: a single painted component over the shared slot list, showing
+// the slots that hold its item type plus the empty ones. A slot change repaints just that
+// cell unless it moves a slot in or out of the view.
+public class InventoryGrid extends JComponent {
+    static final int CELL = 80;
+    static final int GAP = 5;
+    static final int COLS = InventoryUI.COLS;
+
+    private static final Font COUNT_FONT = new Font("Dialog", Font.PLAIN, 12);
+    private static final BasicStroke BORDER = new BasicStroke(3);
+    private static final BasicStroke SELECTED_BORDER = new BasicStroke(4);
+
+    interface Listener {
+        void slotClicked(InventoryUI.Slot slot);
+        void slotsSwapped(InventoryUI.Slot from, InventoryUI.Slot to);
+    }
+
+    private final List<InventoryUI.Slot> slots;
+    private final InventoryUI.ItemType type;
+    private final Listener listener;
+
+    // positions in this view -> indices into slots, and back (-1 when not shown)
+    private int[] shown = new int[0];
+    private int[] positionOf = new int[0];
+    private int hover = -1;
+    private int pressed = -1;
+    private InventoryUI.Slot selected;
+
+    InventoryGrid(List<InventoryUI.Slot> slots, InventoryUI.ItemType type, Listener listener) {
+        this.slots = slots;
+        this.type = type;
+        this.listener = listener;
+        setOpaque(true);
+        setBackground(InventoryUI.PARCHMENT_DARK);
+        refilter();
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                pressed = positionAt(e.getX(), e.getY());
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                int released = positionAt(e.getX(), e.getY());
+                if (pressed >= 0 && released >= 0) {
+                    InventoryUI.Slot from = slots.get(shown[pressed]);
+                    InventoryUI.Slot to = slots.get(shown[released]);
+                    if (pressed == released) {
+                        listener.slotClicked(from);
+                    } else if (from.item != null) {
+                        listener.slotsSwapped(from, to);
+                    }
+                }
+                pressed = -1;
+            }
+
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                setHover(positionAt(e.getX(), e.getY()));
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                setHover(-1);
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+    }
+
+    private boolean shows(InventoryUI.Slot slot) {
+        return slot.item == null || slot.item.type == type;
+    }
+
+    // Rebuilds the view; returns whether any slot moved in or out of it.
+    private boolean refilter() {
+        int[] next = new int[slots.size()];
+        int count = 0;
+        for (int i = 0; i < slots.size(); i++) {
+            if (shows(slots.get(i))) next[count++] = i;
+        }
+        next = Arrays.copyOf(next, count);
+        if (Arrays.equals(next, shown) && positionOf.length == slots.size()) {
+            return false;
+        }
+        boolean resized = rowsFor(next.length) != rowsFor(shown.length);
+        shown = next;
+        positionOf = new int[slots.size()];
+        Arrays.fill(positionOf, -1);
+        for (int p = 0; p < shown.length; p++) {
+            positionOf[shown[p]] = p;
+        }
+        if (resized) {
+            revalidate();
+        }
+        return true;
+    }
+
+    void slotChanged(InventoryUI.Slot slot) {
+        if (refilter()) {
+            repaint();
+            return;
+        }
+        repaintSlot(slot);
+    }
+
+    void slotsChanged() {
+        refilter();
+        repaint();
+    }
+
+    void setSelected(InventoryUI.Slot slot) {
+        if (slot == selected) return;
+        repaintSlot(selected);
+        selected = slot;
+        repaintSlot(selected);
+    }
+
+    private void repaintSlot(InventoryUI.Slot slot) {
+        Rectangle cell = slot != null ? slotBounds(slots.indexOf(slot)) : null;
+        if (cell != null) {
+            repaint(cell);
+        }
+    }
+
+    private void setHover(int position) {
+        if (position == hover) return;
+        if (hover >= 0) repaint(cellBounds(hover));
+        hover = position;
+        if (hover >= 0) repaint(cellBounds(hover));
+    }
+
+    private int positionAt(int x, int y) {
+        int col = (x - GAP) / (CELL + GAP);
+        int row = (y - GAP) / (CELL + GAP);
+        if (x < GAP || y < GAP || col >= COLS) return -1;
+        Rectangle cell = cellBounds(row * COLS + col);
+        if (!cell.contains(x, y)) return -1;
+        int position = row * COLS + col;
+        return position < shown.length ? position : -1;
+    }
+
+    // Where a slot is drawn in this view, or null when the view doesn't show it.
+    public Rectangle slotBounds(int slotIndex) {
+        if (slotIndex < 0 || slotIndex >= positionOf.length || positionOf[slotIndex] < 0) return null;
+        return cellBounds(positionOf[slotIndex]);
+    }
+
+    private Rectangle cellBounds(int position) {
+        int col = position % COLS;
+        int row = position / COLS;
+        return new Rectangle(GAP + col * (CELL + GAP), GAP + row * (CELL + GAP), CELL, CELL);
+    }
+
+    public int getShownCount() {
+        return shown.length;
+    }
+
+    private static int rowsFor(int count) {
+        return Math.max(1, (count + COLS - 1) / COLS);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(GAP + COLS * (CELL + GAP), GAP + rowsFor(shown.length) * (CELL + GAP));
+    }
+
+    // Paints only the cells inside the clip, so a one-slot repaint costs one cell.
+    @Override
+    protected void paintComponent(Graphics g0) {
+        Graphics2D g = (Graphics2D) g0;
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        int firstRow = Math.max(0, (clip.y - GAP) / (CELL + GAP));
+        int lastRow = (clip.y + clip.height) / (CELL + GAP);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = 0; col < COLS; col++) {
+                int position = row * COLS + col;
+                if (position >= shown.length) return;
+                Rectangle cell = cellBounds(position);
+                if (cell.intersects(clip)) {
+                    paintSlot(g, slots.get(shown[position]), cell, position == hover);
+                }
+            }
+        }
+    }
+
+    private void paintSlot(Graphics2D g, InventoryUI.Slot slot, Rectangle cell, boolean hovered) {
+        g.setColor(hovered ? InventoryUI.SLOT_HOVER : InventoryUI.SLOT_BG);
+        g.fillRect(cell.x, cell.y, cell.width, cell.height);
+
+        if (slot.item != null) {
+            ImageIcon icon = slot.item.getIcon();
+            int w = Math.min(icon.getIconWidth(), cell.width);
+            int h = Math.min(icon.getIconHeight(), cell.height);
+            g.drawImage(icon.getImage(), cell.x + (cell.width - w) / 2, cell.y + (cell.height - h) / 2, w, h, null);
+        }
+        if (slot.amount > 1) {
+            g.setFont(COUNT_FONT);
+            g.setColor(Color.WHITE);
+            FontMetrics fm = g.getFontMetrics();
+            String count = String.valueOf(slot.amount);
+            g.drawString(count, cell.x + (cell.width - fm.stringWidth(count)) / 2, cell.y + cell.height - 6);
+        }
+
+        boolean isSelected = slot == selected;
+        int inset = isSelected ? 2 : 1;
+        g.setStroke(isSelected ? SELECTED_BORDER : BORDER);
+        g.setColor(isSelected ? InventoryUI.SELECT_BORDER : InventoryUI.SLOT_BORDER);
+        g.drawRect(cell.x + inset, cell.y + inset, cell.width - 2 * inset - 1, cell.height - 2 * inset - 1);
+    }
+}
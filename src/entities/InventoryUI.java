@@ -3,17 +3,20 @@ package entities;
 import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
-import java.awt.datatransfer.*;
-import java.awt.dnd.*;
 import java.awt.event.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.swing.ImageIcon;
 import java.awt.image.BufferedImage;
+import assets.AssetLoader;
 
 public class InventoryUI extends JPanel {
 
     enum ItemType { EQUIPMENT, CONSUMABLE, MATERIAL }
 
+    // one decoded icon per path, shared by every copy of an item
+    private static final Map<String, ImageIcon> ICONS = new ConcurrentHashMap<>();
+
     static class Item {
         String id;
         String name;
@@ -32,11 +35,10 @@ public class InventoryUI extends JPanel {
         }
 
         ImageIcon getIcon() {
-            try {
-                return new ImageIcon(getClass().getResource(iconPath));
-            } catch (Exception e) {
-                return new ImageIcon(new BufferedImage(48, 48, BufferedImage.TYPE_INT_ARGB));
-            }
+            return ICONS.computeIfAbsent(iconPath, path -> {
+                BufferedImage image = AssetLoader.image(path);
+                return new ImageIcon(image != null ? image : new BufferedImage(48, 48, BufferedImage.TYPE_INT_ARGB));
+            });
         }
     }
 
@@ -45,15 +47,19 @@ public class InventoryUI extends JPanel {
         int amount = 0;
     }
 
-    private final int ROWS = 5;
-    private final int COLS = 4;
+    static final int ROWS = 5;
+    static final int COLS = 4;
 
     private java.util.List<Slot> inventorySlots = new ArrayList<>();
     private Map<String, Slot> equipmentSlots = new LinkedHashMap<>();
 
     private Slot selectedSlot = null;
+    // bumped on every change to what the slots hold; the hotbar redraws when it moves
+    private volatile int version = 0;
 
-    private JPanel gridPanel = new JPanel(new GridLayout(ROWS, COLS, 5, 5));
+    // one painted view per tab, all over inventorySlots
+    private final java.util.List<InventoryGrid> grids = new ArrayList<>();
+    private final Map<String, JLabel> equipIcons = new HashMap<>();
     private JPanel equipPanel = new JPanel();
     private JTextArea detailArea = new JTextArea();
     private JButton btnEquip = new JButton("EQUIP");
@@ -63,18 +69,22 @@ public class InventoryUI extends JPanel {
     private java.util.List<Item> allItems = new ArrayList<>();
 
     private final Color PARCHMENT = new Color(217,195,154);
-    private final Color PARCHMENT_DARK = new Color(200,175,130);
-    private final Color SLOT_BG = new Color(140,111,69);
-    private final Color SLOT_HOVER = new Color(160,130,85);
-    private final Color SLOT_BORDER = new Color(58,46,30);
+    static final Color PARCHMENT_DARK = new Color(200,175,130);
+    static final Color SLOT_BG = new Color(140,111,69);
+    static final Color SLOT_HOVER = new Color(160,130,85);
+    static final Color SLOT_BORDER = new Color(58,46,30);
     private final Color SLOT_HIGHLIGHT = new Color(216,179,122);
     private final Color TEXT_BROWN = new Color(59,47,35);
     private final Color PANEL_BORDER = new Color(91,74,48);
     private final Color BUTTON_BROWN = new Color(152,117,78);
     private final Color BUTTON_DROP = new Color(168,92,61);
-    private final Color SELECT_BORDER = new Color(206,160,98);
+    static final Color SELECT_BORDER = new Color(206,160,98);
 
     public InventoryUI(int screenWidth, int screenHeight) {
+        this(screenWidth, screenHeight, ROWS * COLS);
+    }
+
+    public InventoryUI(int screenWidth, int screenHeight, int slotCount) {
         setPreferredSize(new Dimension(screenWidth, screenHeight));
         setBackground(PARCHMENT);
         setLayout(new BorderLayout());
@@ -86,7 +96,7 @@ public class InventoryUI extends JPanel {
 
         loadSampleItems();
 
-        for (int i = 0; i < ROWS * COLS; i++) {
+        for (int i = 0; i < slotCount; i++) {
             inventorySlots.add(new Slot());
         }
 
@@ -106,12 +116,11 @@ public class InventoryUI extends JPanel {
         leftCol.setPreferredSize(new Dimension(300, 600));
 
         leftCol.setBackground(PARCHMENT);
-        gridPanel.setBackground(PARCHMENT_DARK);
         equipPanel.setBackground(PARCHMENT_DARK);
 
         equipPanel.setLayout(new BoxLayout(equipPanel, BoxLayout.Y_AXIS));
         equipPanel.setBorder(BorderFactory.createTitledBorder(new LineBorder(PANEL_BORDER, 2), "Equipment", 0, 0, new Font("Serif", Font.BOLD, 12), TEXT_BROWN));
-        refreshEquipmentPanel();
+        buildEquipmentPanel();
 
         detailArea.setEditable(false);
         detailArea.setLineWrap(true);
@@ -138,14 +147,14 @@ public class InventoryUI extends JPanel {
 
         JTabbedPane tabs = new JTabbedPane();
         tabs.setBackground(PARCHMENT);
-        tabs.addTab("Equipment", new JScrollPane(gridPanel));
-        tabs.addTab("Consumables", new JScrollPane(gridPanel));
-        tabs.addTab("Materials", new JScrollPane(gridPanel));
+        tabs.addTab("Equipment", makeTab(ItemType.EQUIPMENT));
+        tabs.addTab("Consumables", makeTab(ItemType.CONSUMABLE));
+        tabs.addTab("Materials", makeTab(ItemType.MATERIAL));
 
         add(leftCol, BorderLayout.WEST);
         add(tabs, BorderLayout.CENTER);
 
-        refreshGrid();
+        updateDetail();
 
         btnEquip.addActionListener(e -> equipItem());
         btnUse.addActionListener(e -> useItem());
@@ -159,17 +168,25 @@ public class InventoryUI extends JPanel {
         b.setBorder(new LineBorder(PANEL_BORDER, 2));
     }
 
-    private void refreshGrid() {
-        gridPanel.removeAll();
-        for (Slot slot : inventorySlots) {
-            gridPanel.add(makeSlotComponent(slot));
-        }
-        gridPanel.revalidate();
-        gridPanel.repaint();
+    private JScrollPane makeTab(ItemType type) {
+        InventoryGrid grid = new InventoryGrid(inventorySlots, type, new InventoryGrid.Listener() {
+            public void slotClicked(Slot slot) {
+                select(slot);
+            }
+
+            public void slotsSwapped(Slot from, Slot to) {
+                swapItems(from, to);
+            }
+        });
+        grids.add(grid);
+        JScrollPane scroll = new JScrollPane(grid);
+        scroll.getVerticalScrollBar().setUnitIncrement(InventoryGrid.CELL / 2);
+        scroll.getViewport().setBackground(PARCHMENT_DARK);
+        return scroll;
     }
 
-    private void refreshEquipmentPanel() {
-        equipPanel.removeAll();
+    // Rows are built once; changes only swap the icon on the row's label.
+    private void buildEquipmentPanel() {
         for (String name : equipmentSlots.keySet()) {
             Slot slot = equipmentSlots.get(name);
             JPanel row = new JPanel(new FlowLayout(FlowLayout.LEFT));
@@ -179,15 +196,12 @@ public class InventoryUI extends JPanel {
             row.add(new JLabel(name + ":"));
             JLabel icon = new JLabel();
             icon.setPreferredSize(new Dimension(40, 40));
-            if (slot.item != null)
-                icon.setIcon(slot.item.getIcon());
             row.add(icon);
+            equipIcons.put(name, icon);
 
             row.addMouseListener(new MouseAdapter() {
                 public void mouseClicked(MouseEvent e) {
-                    selectedSlot = slot;
-                    refreshGrid();
-                    updateDetail();
+                    select(slot);
                 }
                 public void mouseEntered(MouseEvent e) {
                     row.setBackground(new Color(210,185,140));
@@ -199,147 +213,96 @@ public class InventoryUI extends JPanel {
 
             equipPanel.add(row);
         }
-        equipPanel.revalidate();
-        equipPanel.repaint();
+        refreshEquipmentIcons();
     }
 
-    private JPanel makeSlotComponent(Slot slot) {
-        JPanel panel = new JPanel(new BorderLayout());
-        panel.setBackground(SLOT_BG);
-        panel.setPreferredSize(new Dimension(80, 80));
-
-        if (slot == selectedSlot) {
-            panel.setBorder(new LineBorder(SELECT_BORDER, 4));
-        } else {
-            panel.setBorder(new LineBorder(SLOT_BORDER, 3));
+    private void refreshEquipmentIcons() {
+        for (String name : equipmentSlots.keySet()) {
+            Slot slot = equipmentSlots.get(name);
+            equipIcons.get(name).setIcon(slot.item != null ? slot.item.getIcon() : null);
         }
+    }
 
-        JLabel img = new JLabel();
-        img.setHorizontalAlignment(SwingConstants.CENTER);
-
-        if (slot.item != null)
-            img.setIcon(slot.item.getIcon());
-
-        panel.add(img, BorderLayout.CENTER);
-
-        if (slot.amount > 1) {
-            JLabel count = new JLabel(String.valueOf(slot.amount));
-            count.setHorizontalAlignment(SwingConstants.CENTER);
-            count.setOpaque(false);
-            count.setForeground(Color.WHITE);
-            panel.add(count, BorderLayout.SOUTH);
+    private void select(Slot slot) {
+        selectedSlot = slot;
+        for (InventoryGrid grid : grids) {
+            grid.setSelected(slot);
         }
-
-        panel.addMouseListener(new MouseAdapter() {
-            Color original = panel.getBackground();
-
-            public void mouseClicked(MouseEvent e) {
-                selectedSlot = slot;
-                updateDetail();
-                refreshGrid();
-                refreshEquipmentPanel();
-            }
-
-            public void mouseEntered(MouseEvent e) {
-                panel.setBackground(SLOT_HOVER);
-            }
-
-            public void mouseExited(MouseEvent e) {
-                panel.setBackground(original);
-            }
-        });
-
-        panel.setTransferHandler(new TransferHandler("item") {
-            @Override
-            public int getSourceActions(JComponent c) {
-                return COPY_OR_MOVE;
-            }
-
-            @Override
-            protected Transferable createTransferable(JComponent c) {
-                if (selectedSlot != null && selectedSlot.item != null) {
-                    return new StringSelection(selectedSlot.item.id);
-                }
-                return null;
-            }
-        });
-
-
-        panel.setDropTarget(new DropTarget() {
-            public synchronized void drop(DropTargetDropEvent dtde) {
-                try {
-                    dtde.acceptDrop(DnDConstants.ACTION_MOVE);
-                    Object dropped = dtde.getTransferable().getTransferData(DataFlavor.stringFlavor);
-                    swapItems(slot, (String)dropped);
-                    refreshGrid();
-                    refreshEquipmentPanel();
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                }
-            }
-        });
-
-        return panel;
+        updateDetail();
     }
 
-    private void swapItems(Slot target, String itemId) {
-        Slot source = findSlotByItemId(itemId);
-        if (source == null) return;
-
-        Item tmp = target.item;
-        int tmpAmt = target.amount;
-
-        target.item = source.item;
-        target.amount = source.amount;
-
-        source.item = tmp;
-        source.amount = tmpAmt;
+    // Every change to a slot's contents goes through here.
+    private void slotChanged(Slot slot) {
+        version++;
+        for (InventoryGrid grid : grids) {
+            grid.slotChanged(slot);
+        }
     }
 
-    private Slot findSlotByItemId(String id) {
-        for (Slot s : inventorySlots)
-            if (s.item != null && s.item.id.equals(id))
-                return s;
+    private void swapItems(Slot from, Slot to) {
+        Item tmp = to.item;
+        int tmpAmt = to.amount;
 
-        for (Slot s : equipmentSlots.values())
-            if (s.item != null && s.item.id.equals(id))
-                return s;
+        to.item = from.item;
+        to.amount = from.amount;
 
-        return null;
+        from.item = tmp;
+        from.amount = tmpAmt;
+
+        slotChanged(from);
+        slotChanged(to);
+        if (selectedSlot == from || selectedSlot == to) {
+            updateDetail();
+        }
     }
 
     public void reset() {
-        selectedSlot = null;
-        updateDetail();
-        refreshGrid();
-        refreshEquipmentPanel();
+        version++;
+        for (InventoryGrid grid : grids) {
+            grid.slotsChanged();
+        }
+        refreshEquipmentIcons();
+        select(null);
     }
 
     private void updateDetail() {
-        detailArea.setText("");
         if (selectedSlot == null || selectedSlot.item == null) {
-            detailArea.setText("No item selected");
+            setDetail("No item selected");
             btnEquip.setEnabled(false);
             btnUse.setEnabled(false);
             btnDrop.setEnabled(false);
             return;
         }
 
+        // one setText instead of an append per line, each of which edits the document
         Item it = selectedSlot.item;
-        detailArea.append(it.name + "\n");
-        detailArea.append(it.type + "\n\n");
-        detailArea.append(it.description + "\n\n");
+        StringBuilder text = new StringBuilder();
+        text.append(it.name).append("\n");
+        text.append(it.type).append("\n\n");
+        text.append(it.description).append("\n\n");
 
         for (var e : it.stats.entrySet()) {
-            detailArea.append(e.getKey() + ": " + e.getValue() + "\n");
+            text.append(e.getKey()).append(": ").append(e.getValue()).append("\n");
         }
+        setDetail(text.toString());
 
         btnEquip.setEnabled(it.type == ItemType.EQUIPMENT);
         btnUse.setEnabled(it.type == ItemType.CONSUMABLE);
         btnDrop.setEnabled(true);
     }
 
-    private void equipItem() {
+    // Replacing the text walks every position in the document, so skip it when nothing changed.
+    private void setDetail(String text) {
+        if (!text.equals(detailArea.getText())) {
+            detailArea.setText(text);
+        }
+    }
+
+    public void selectSlot(int index) {
+        select(index >= 0 && index < inventorySlots.size() ? inventorySlots.get(index) : null);
+    }
+
+    public void equipItem() {
         if (selectedSlot == null || selectedSlot.item == null) return;
         Item it = selectedSlot.item;
 
@@ -369,29 +332,31 @@ public class InventoryUI extends JPanel {
         selectedSlot.item = old;
         selectedSlot.amount = oldAmt;
 
-        refreshGrid();
-        refreshEquipmentPanel();
+        slotChanged(selectedSlot);
+        refreshEquipmentIcons();
         updateDetail();
     }
 
-    private void useItem() {
+    public void useItem() {
         if (selectedSlot == null || selectedSlot.item == null) return;
         if (selectedSlot.item.type != ItemType.CONSUMABLE) return;
 
         selectedSlot.amount--;
         if (selectedSlot.amount <= 0) selectedSlot.item = null;
 
-        refreshGrid();
+        slotChanged(selectedSlot);
         updateDetail();
     }
 
-    private void dropItem() {
+    public void dropItem() {
         if (selectedSlot == null) return;
         selectedSlot.item = null;
         selectedSlot.amount = 0;
 
-        refreshGrid();
-        refreshEquipmentPanel();
+        slotChanged(selectedSlot);
+        if (equipmentSlots.containsValue(selectedSlot)) {
+            refreshEquipmentIcons();
+        }
         updateDetail();
     }
 
@@ -421,18 +386,29 @@ public class InventoryUI extends JPanel {
         return null;
     }
 
-    private void addItemToInventory(Item item) { addItemToInventory(item, 1); }
+    public boolean addItem(String id, int amount) {
+        Item item = cloneItem(id);
+        return item != null && addItemToInventory(item, amount);
+    }
 
-    private void addItemToInventory(Item item, int amt) {
+    private boolean addItemToInventory(Item item) { return addItemToInventory(item, 1); }
+
+    private boolean addItemToInventory(Item item, int amt) {
         for (Slot s : inventorySlots)
             if (s.item == null) {
                 s.item = item;
                 s.amount = amt;
-                return;
+                slotChanged(s);
+                return true;
             }
+        return false;
     }
 
     public java.util.List<Slot> getInventorySlots() {
         return inventorySlots;
     }
+
+    public int getVersion() {
+        return version;
+    }
 }
@@ -4,12 +4,10 @@ import java.awt.Graphics2D;
 import java.awt.Image;
 import javax.swing.ImageIcon;
 import input.KeyHandler;
+import log.Log;
 import maps.Map;
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.awt.image.BufferedImage;
-import javax.imageio.ImageIO;
-import java.io.IOException;
+import java.util.Random;
 
 public class Player {
     private int qCooldown = 0;
@@ -32,9 +30,11 @@ public class Player {
     private int equippedDefense = 0;
 
     public double px, py;
+    private double prevPx, prevPy;
     private double speed;
     private KeyHandler keyH;
     private Map currentMap;
+    private final Random rng;
 
     private static final int IDLE = 0;
     private static final int WALKING = 1;
@@ -58,23 +58,26 @@ public class Player {
     private float accumulatedAnimationTime = 0f;
     private final float playerFrameDuration = 0.1f;
     private boolean deathAnimationFinished = false;
-    private static final int HURT_FRAMES = 5;
-
-    private static final int DOWN = 0;
-    private static final int LEFT = 1;
-    private static final int RIGHT = 2;
-    private static final int UP = 3;
-    private static final int UP_LEFT = 4;
-    private static final int UP_RIGHT = 5;
-    private static final int DOWN_LEFT = 6;
-    private static final int DOWN_RIGHT = 7;
+    static final int HURT_FRAMES = 5;
+
+    static final int DOWN = 0;
+    static final int LEFT = 1;
+    static final int RIGHT = 2;
+    static final int UP = 3;
+    static final int UP_LEFT = 4;
+    static final int UP_RIGHT = 5;
+    static final int DOWN_LEFT = 6;
+    static final int DOWN_RIGHT = 7;
     private int currentDirection = DOWN;
     
     public final int playerWidth = 100;
     public final int playerHeight = 100;
 
-    private final ArrayList<SlashAttack> slashes = new ArrayList<>();
-    private final ArrayList<SkillWAttack> skillWAttacks = new ArrayList<>();
+    private static final int ATTACK_POOL_SIZE = 16;
+    private final Pool<SlashAttack> slashPool = new Pool<>(ATTACK_POOL_SIZE, SlashAttack::new);
+    private final Pool<SkillWAttack> skillWPool = new Pool<>(ATTACK_POOL_SIZE, SkillWAttack::new);
+    private final ArrayList<SlashAttack> slashes = new ArrayList<>(ATTACK_POOL_SIZE);
+    private final ArrayList<SkillWAttack> skillWAttacks = new ArrayList<>(ATTACK_POOL_SIZE);
 
     public ArrayList<SlashAttack> getSlashes() {
         return slashes;
@@ -113,19 +116,27 @@ public class Player {
             state = DYING;
             frameIndex = 0;
             accumulatedAnimationTime = 0f;
-            System.out.println("Player defeated!");
+            Log.info("Player defeated");
         } else {
-            System.out.println("Player HP: " + hp);
+            Log.debug("Player HP: {}", hp);
         }
     }
 
     public Player(int startX, int startY, KeyHandler keyH, Map map) {
+        this(startX, startY, keyH, map, new Random());
+    }
+
+    // Damage rolls come from rng, so a seeded one makes the player's hits reproducible.
+    public Player(int startX, int startY, KeyHandler keyH, Map map, Random rng) {
+        this.rng = rng;
         this.initialX = startX;
         this.initialY = startY;
         this.keyH = keyH;
         this.currentMap = map;
         this.px = startX;
         this.py = startY;
+        this.prevPx = startX;
+        this.prevPy = startY;
         this.speed = 4.0;
         this.hp = maxHp;
         this.alive = true;
@@ -138,143 +149,29 @@ public class Player {
     public void resetPlayerState() {
         this.px = initialX;
         this.py = initialY;
+        this.prevPx = initialX;
+        this.prevPy = initialY;
         this.hp = maxHp;
         this.alive = true;
         this.state = IDLE;
         this.deathAnimationFinished = false;
         this.qCooldown = 0;
         this.wCooldown = 0;
+        for (SlashAttack s : slashes) slashPool.release(s);
+        for (SkillWAttack s : skillWAttacks) skillWPool.release(s);
         this.slashes.clear();
         this.skillWAttacks.clear();
     }
 
     private void loadFrames() {
-        frames = new Image[8][6];
-        attackFrames = new Image[8][6];
-        idleFrames = new Image[8][6];
-        BufferedImage spriteSheet = loadSpriteSheet("/assets/characters/player_walk.png");
-
-        if (spriteSheet != null) {
-            
-            for (int i = 0; i < 6; i++) {
-                frames[DOWN][i] = getSubImage(spriteSheet, i, 0);
-                frames[LEFT][i] = getSubImage(spriteSheet, i, 1);
-                frames[RIGHT][i] = getSubImage(spriteSheet, i, 2);
-                frames[UP][i] = getSubImage(spriteSheet, i, 3);
-            }
-        }
-
-        frames[UP_LEFT] = frames[UP];
-        frames[UP_RIGHT] = frames[UP];
-        frames[DOWN_LEFT] = frames[DOWN];
-        frames[DOWN_RIGHT] = frames[DOWN];
-
-        dieFrames = new Image[8][6];
-        BufferedImage dieSpriteSheet = loadSpriteSheet("/assets/characters/player_death.png");
-        if (dieSpriteSheet != null) {
-            for (int i = 0; i < 6; i++) {
-                dieFrames[DOWN][i] = getSubImage(dieSpriteSheet, i, 0);
-                dieFrames[LEFT][i] = getSubImage(dieSpriteSheet, i, 1);
-                dieFrames[RIGHT][i] = getSubImage(dieSpriteSheet, i, 2);
-                dieFrames[UP][i] = getSubImage(dieSpriteSheet, i, 3);
-            }
-            dieFrames[UP_LEFT] = dieFrames[LEFT];
-            dieFrames[UP_RIGHT] = dieFrames[RIGHT];
-            dieFrames[DOWN_LEFT] = dieFrames[LEFT];
-            dieFrames[DOWN_RIGHT] = dieFrames[RIGHT];
-        } else {
-            System.err.println("Player: missing die sprite sheet.");
-        }
-        
-        BufferedImage attackSpriteSheet = loadSpriteSheet("/assets/characters/playerwalk_attack.png");
-        if(attackSpriteSheet != null){
-            for (int i = 0; i < 6; i++) {
-                attackFrames[DOWN][i] = getSubImage(attackSpriteSheet, i, 0);
-                attackFrames[LEFT][i] = getSubImage(attackSpriteSheet, i, 1);
-                attackFrames[RIGHT][i] = getSubImage(attackSpriteSheet, i, 2);
-                attackFrames[UP][i] = getSubImage(attackSpriteSheet, i, 3);
-            }
-        }
-        
-        attackFrames[UP_LEFT] = attackFrames[UP];
-        attackFrames[UP_RIGHT] = attackFrames[UP];
-        attackFrames[DOWN_LEFT] = attackFrames[DOWN];
-        attackFrames[DOWN_RIGHT] = attackFrames[DOWN];
-
-        for (int i = 0; i < 6; i++) {
-            idleFrames[DOWN][i] = frames[DOWN][0];
-            idleFrames[LEFT][i] = frames[LEFT][0];
-            idleFrames[RIGHT][i] = frames[RIGHT][0];
-            idleFrames[UP][i] = frames[UP][0];
-        }
-
-        idleFrames[UP_LEFT] = idleFrames[UP];
-        idleFrames[UP_RIGHT] = idleFrames[UP];
-        idleFrames[DOWN_LEFT] = idleFrames[DOWN];
-        idleFrames[DOWN_RIGHT] = idleFrames[DOWN];
-
-        hurtFrames = new Image[8][HURT_FRAMES];
-        BufferedImage hurtSpriteSheet = loadSpriteSheet("/assets/characters/player_hurt.png");
-        if (hurtSpriteSheet != null) {
-            for (int i = 0; i < HURT_FRAMES; i++) {
-                hurtFrames[DOWN][i] = getSubImage(hurtSpriteSheet, i, 0);
-                hurtFrames[LEFT][i] = getSubImage(hurtSpriteSheet, i, 1);
-                hurtFrames[RIGHT][i] = getSubImage(hurtSpriteSheet, i, 2);
-                hurtFrames[UP][i] = getSubImage(hurtSpriteSheet, i, 3);
-            }
-        }
-        hurtFrames[UP_LEFT] = hurtFrames[UP];
-        hurtFrames[UP_RIGHT] = hurtFrames[UP];
-        hurtFrames[DOWN_LEFT] = hurtFrames[DOWN];
-        hurtFrames[DOWN_RIGHT] = hurtFrames[DOWN];
-
-        firesplashFrames = new Image[8][6];
-        BufferedImage firesplashSpriteSheet = loadSpriteSheet("/assets/characters/player_firesplash.png");
-        if (firesplashSpriteSheet != null) {
-            for (int i = 0; i < 6; i++) {
-                firesplashFrames[DOWN][i] = getSubImage(firesplashSpriteSheet, i, 0);
-                firesplashFrames[LEFT][i] = getSubImage(firesplashSpriteSheet, i, 1);
-                firesplashFrames[RIGHT][i] = getSubImage(firesplashSpriteSheet, i, 2);
-                firesplashFrames[UP][i] = getSubImage(firesplashSpriteSheet, i, 3);
-            }
-            firesplashFrames[UP_LEFT] = firesplashFrames[LEFT];
-            firesplashFrames[UP_RIGHT] = firesplashFrames[RIGHT];
-        firesplashFrames[DOWN_LEFT] = firesplashFrames[LEFT];
-        firesplashFrames[DOWN_RIGHT] = firesplashFrames[RIGHT];
-        }
-
-        icepiercerFrames = new Image[8][6];
-        BufferedImage icepiercerSpriteSheet = loadSpriteSheet("/assets/characters/player_icepiercer.png");
-        if (icepiercerSpriteSheet != null) {
-            for (int i = 0; i < 6; i++) {
-                icepiercerFrames[DOWN][i] = getSubImage(icepiercerSpriteSheet, i, 0);
-                icepiercerFrames[LEFT][i] = getSubImage(icepiercerSpriteSheet, i, 1);
-                icepiercerFrames[RIGHT][i] = getSubImage(icepiercerSpriteSheet, i, 2);
-                icepiercerFrames[UP][i] = getSubImage(icepiercerSpriteSheet, i, 3);
-            }
-            icepiercerFrames[UP_LEFT] = icepiercerFrames[LEFT];
-            icepiercerFrames[UP_RIGHT] = icepiercerFrames[RIGHT];
-            icepiercerFrames[DOWN_LEFT] = icepiercerFrames[LEFT];
-            icepiercerFrames[DOWN_RIGHT] = icepiercerFrames[RIGHT];
-        }
-    }
-    
-    private BufferedImage loadSpriteSheet(String path) {
-        try {
-            java.net.URL res = getClass().getResource(path);
-            if (res != null) {
-                return ImageIO.read(res);
-            }
-        } catch (IOException e) {
-            System.err.println("Could not load sprite sheet: " + path);
-        }
-        return null;
-    }
-
-    private Image getSubImage(BufferedImage spriteSheet, int col, int row) {
-        int spriteWidth = 64;
-        int spriteHeight = 64;
-        return spriteSheet.getSubimage(col * spriteWidth, row * spriteHeight, spriteWidth, spriteHeight);
+        PlayerSprites sprites = PlayerSprites.get(playerWidth, playerHeight);
+        frames = sprites.walk;
+        attackFrames = sprites.attack;
+        idleFrames = sprites.idle;
+        dieFrames = sprites.death;
+        hurtFrames = sprites.hurt;
+        firesplashFrames = sprites.firesplash;
+        icepiercerFrames = sprites.icepiercer;
     }
 
     private Image loadImg(String path) {
@@ -377,18 +274,23 @@ public class Player {
                 
             }
         }
-        Iterator<SlashAttack> it = slashes.iterator();
-        while (it.hasNext()) {
-            SlashAttack s = it.next();
+        int keptSlashes = 0;
+        for (int i = 0; i < slashes.size(); i++) {
+            SlashAttack s = slashes.get(i);
             s.update(deltaTime);
-            if (!s.active) it.remove();
+            if (s.active) slashes.set(keptSlashes++, s);
+            else slashPool.release(s);
         }
-        Iterator<SkillWAttack> skillWIt = skillWAttacks.iterator();
-        while (skillWIt.hasNext()) {
-            SkillWAttack s = skillWIt.next();
+        Pool.truncate(slashes, keptSlashes);
+
+        int keptSkillW = 0;
+        for (int i = 0; i < skillWAttacks.size(); i++) {
+            SkillWAttack s = skillWAttacks.get(i);
             s.update(deltaTime);
-            if (!s.active) skillWIt.remove();
+            if (s.active) skillWAttacks.set(keptSkillW++, s);
+            else skillWPool.release(s);
         }
+        Pool.truncate(skillWAttacks, keptSkillW);
         
         if (!isAttacking) {
             if (dx > 0 && dy < 0) currentDirection = UP_RIGHT;
@@ -490,7 +392,7 @@ public class Player {
         if (state == DYING && !deathAnimationFinished) {
             Image currentDieFrame = dieFrames[deathDirection][frameIndex];
             if (currentDieFrame != null) {
-                g2.drawImage(currentDieFrame, drawX, drawY, width, height, null);
+                g2.drawImage(currentDieFrame, drawX, drawY, null);
             } else {
                 g2.setColor(Color.DARK_GRAY);
                 g2.fillRect(drawX, drawY, width, height);
@@ -500,7 +402,7 @@ public class Player {
 
 
         if (currentImg != null) {
-            g2.drawImage(currentImg, drawX, drawY, width, height, null);
+            g2.drawImage(currentImg, drawX, drawY, null);
         } else {
             g2.setColor(Color.BLUE);
             g2.fillRect(drawX, drawY, 32, 32);
@@ -528,7 +430,9 @@ public class Player {
             case DOWN_LEFT: sx = drawX - offset; sy = drawY + offset; break;
             case DOWN_RIGHT: sx = drawX + offset; sy = drawY + offset; break;
         }
-        slashes.add(new SlashAttack(sx, sy, currentDirection, getTotalAttack()));
+        SlashAttack slash = slashPool.acquire();
+        slash.reset(sx, sy, currentDirection, getTotalAttack(), rng);
+        slashes.add(slash);
         state = ATTACKING;
     }
 
@@ -548,10 +452,27 @@ public class Player {
             case DOWN_LEFT: sx = drawX - offset; sy = drawY + offset; break;
             case DOWN_RIGHT: sx = drawX + offset; sy = drawY + offset; break;
         }
-        skillWAttacks.add(new SkillWAttack(sx, sy, currentDirection, getTotalAttack()));
+        SkillWAttack skillW = skillWPool.acquire();
+        skillW.reset(sx, sy, currentDirection, getTotalAttack(), rng);
+        skillWAttacks.add(skillW);
         state = ATTACKING;
     }
 
+    public void savePreviousPosition() {
+        prevPx = px;
+        prevPy = py;
+        for (SlashAttack s : slashes) s.savePreviousPosition();
+        for (SkillWAttack s : skillWAttacks) s.savePreviousPosition();
+    }
+
+    public double getRenderX(float alpha) {
+        return prevPx + (px - prevPx) * alpha;
+    }
+
+    public double getRenderY(float alpha) {
+        return prevPy + (py - prevPy) * alpha;
+    }
+
     public int getX() {
         return (int) Math.round(this.px);
     }
@@ -560,6 +481,10 @@ public class Player {
         return (int) Math.round(this.py);
     }
 
+    public int getHp() {
+        return hp;
+    }
+
     public boolean isAlive() {
         return alive;
     }
@@ -578,5 +503,5 @@ public class Player {
         frameIndex = 0;
         accumulatedAnimationTime = 0f;
     }
-    public void useSkillM() { System.out.println("Skill M used"); }
+    public void useSkillM() { Log.debug("Skill M used"); }
 }
@@ -0,0 +1,109 @@
+package entities;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+
+import static entities.Player.DOWN;
+import static entities.Player.LEFT;
+import static entities.Player.RIGHT;
+import static entities.Player.UP;
+import static entities.Player.UP_LEFT;
+import static entities.Player.UP_RIGHT;
+import static entities.Player.DOWN_LEFT;
+import static entities.Player.DOWN_RIGHT;
+
+// Every player frame, sliced from the sheets and baked at draw size once per process.
+class PlayerSprites {
+    private static final int SHEET_FRAME_SIZE = 64;
+    private static PlayerSprites cached;
+
+    final int width;
+    final int height;
+
+    final Image[][] walk = new Image[8][6];
+    final Image[][] attack = new Image[8][6];
+    final Image[][] idle = new Image[8][6];
+    final Image[][] death = new Image[8][6];
+    final Image[][] hurt = new Image[8][Player.HURT_FRAMES];
+    final Image[][] firesplash = new Image[8][6];
+    final Image[][] icepiercer = new Image[8][6];
+
+    static synchronized PlayerSprites get(int width, int height) {
+        if (cached == null || cached.width != width || cached.height != height) {
+            cached = new PlayerSprites(width, height);
+        }
+        return cached;
+    }
+
+    private PlayerSprites(int width, int height) {
+        this.width = width;
+        this.height = height;
+
+        sliceRows(walk, "/assets/characters/player_walk.png", 6);
+        aliasToUpDown(walk);
+
+        if (sliceRows(death, "/assets/characters/player_death.png", 6)) {
+            aliasToLeftRight(death);
+        } else {
+            System.err.println("Player: missing die sprite sheet.");
+        }
+
+        sliceRows(attack, "/assets/characters/playerwalk_attack.png", 6);
+        aliasToUpDown(attack);
+
+        for (int i = 0; i < 6; i++) {
+            idle[DOWN][i] = walk[DOWN][0];
+            idle[LEFT][i] = walk[LEFT][0];
+            idle[RIGHT][i] = walk[RIGHT][0];
+            idle[UP][i] = walk[UP][0];
+        }
+        aliasToUpDown(idle);
+
+        sliceRows(hurt, "/assets/characters/player_hurt.png", Player.HURT_FRAMES);
+        aliasToUpDown(hurt);
+
+        if (sliceRows(firesplash, "/assets/characters/player_firesplash.png", 6)) {
+            aliasToLeftRight(firesplash);
+        }
+
+        if (sliceRows(icepiercer, "/assets/characters/player_icepiercer.png", 6)) {
+            aliasToLeftRight(icepiercer);
+        }
+    }
+
+    // Sheet rows are down, left, right, up.
+    private boolean sliceRows(Image[][] target, String path, int count) {
+        BufferedImage sheet = Sprites.load(path);
+        if (sheet == null) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            target[DOWN][i] = bakeFrame(sheet, i, 0);
+            target[LEFT][i] = bakeFrame(sheet, i, 1);
+            target[RIGHT][i] = bakeFrame(sheet, i, 2);
+            target[UP][i] = bakeFrame(sheet, i, 3);
+        }
+        return true;
+    }
+
+    // Diagonals share the cardinal rows' frames rather than baking copies.
+    private void aliasToUpDown(Image[][] target) {
+        target[UP_LEFT] = target[UP];
+        target[UP_RIGHT] = target[UP];
+        target[DOWN_LEFT] = target[DOWN];
+        target[DOWN_RIGHT] = target[DOWN];
+    }
+
+    private void aliasToLeftRight(Image[][] target) {
+        target[UP_LEFT] = target[LEFT];
+        target[UP_RIGHT] = target[RIGHT];
+        target[DOWN_LEFT] = target[LEFT];
+        target[DOWN_RIGHT] = target[RIGHT];
+    }
+
+    private Image bakeFrame(BufferedImage sheet, int col, int row) {
+        BufferedImage frame = sheet.getSubimage(col * SHEET_FRAME_SIZE, row * SHEET_FRAME_SIZE,
+                SHEET_FRAME_SIZE, SHEET_FRAME_SIZE);
+        return Sprites.bake(frame, width, height, false);
+    }
+}
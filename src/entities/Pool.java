@@ -0,0 +1,47 @@
+package entities;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+// Fixed-capacity free list. Callers reset objects when they acquire them.
+public class Pool<T> {
+    private final Object[] free;
+    private int freeCount;
+    private final Supplier<T> factory;
+
+    public Pool(int capacity, Supplier<T> factory) {
+        this.free = new Object[capacity];
+        this.factory = factory;
+        for (int i = 0; i < capacity; i++) {
+            free[freeCount++] = factory.get();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        if (freeCount == 0) {
+            return factory.get();
+        }
+        T obj = (T) free[--freeCount];
+        free[freeCount] = null;
+        return obj;
+    }
+
+    // Extra objects beyond capacity are left to the GC.
+    public void release(T obj) {
+        if (freeCount < free.length) {
+            free[freeCount++] = obj;
+        }
+    }
+
+    public int available() {
+        return freeCount;
+    }
+
+    // Drops a list's tail from the end so ArrayList never shifts or allocates.
+    public static <E> void truncate(List<E> list, int size) {
+        for (int i = list.size() - 1; i >= size; i--) {
+            list.remove(i);
+        }
+    }
+}
@@ -2,28 +2,31 @@ package entities;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import javax.imageio.ImageIO;
-import java.io.IOException;
+import assets.AssetLoader;
 
 public class Projectile {
+    // decoded once for every projectile; null just means the fallback oval is drawn
+    private static final BufferedImage sprite = AssetLoader.image("/sprites/fireball.png");
+
     public int x, y;
     public int speed = 8;
     public int directionX, directionY;
-    public boolean active = true;
-    private BufferedImage sprite;
+    public boolean active = false;
+
+    public Projectile() {
+    }
 
     public Projectile(int startX, int startY, int dirX, int dirY) {
+        reset(startX, startY, dirX, dirY);
+    }
+
+    // Reuses the object for a new shot, so a pool can hand the same projectile out again.
+    public void reset(int startX, int startY, int dirX, int dirY) {
         this.x = startX;
         this.y = startY;
         this.directionX = dirX;
         this.directionY = dirY;
-
-        try {
-            sprite = ImageIO.read(getClass().getResourceAsStream("/sprites/fireball.png"));
-        } catch (IOException e) {
-            e.printStackTrace();
-            System.out.println("Fireball sprite not found!");
-        }
+        this.active = true;
     }
 
     public void update() {
@@ -2,71 +2,98 @@ package entities;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.Random;
 import javax.imageio.ImageIO;
 import java.io.InputStream;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 public class SkillWAttack {
     public int x, y;
-    public boolean active = true;
+    private int prevX, prevY;
+    public boolean active = false;
     private int direction;
     
-    private BufferedImage[] frames;
+    private static final BufferedImage[] FRAMES = new BufferedImage[4];
     private int frame = 0;
     private float accumulatedTime = 0f;
     private final int frameDelay = 6;
     
-    private final float secondsPerFrame;
+    private final float secondsPerFrame = (float) frameDelay / 60.0f;
     private int width = 50;
     private int height = 50;
 
-    private List<Enemy> hitEnemies = new ArrayList<>();
+    private final HitSet hitEnemies = new HitSet();
 
     public Rectangle getBounds() {
         return new Rectangle((int)x, (int)y, width, height);
     }
+
+    public int getWidth() { return width; }
+
+    public int getHeight() { return height; }
     
     private int damage;
     public int getDamage() { return damage; }
 
     public boolean hasHit(Enemy enemy) {
-        return hitEnemies.contains(enemy);
+        return hitEnemies.contains(enemy.getId());
     }
 
     public void addHitEnemy(Enemy enemy) {
-        hitEnemies.add(enemy);
+        hitEnemies.add(enemy.getId());
     }
     
+    public SkillWAttack() {
+    }
+
     public SkillWAttack(int x, int y, int direction, int playerAttack) {
+        reset(x, y, direction, playerAttack, new Random());
+    }
+
+    public void reset(int x, int y, int direction, int playerAttack, Random rng) {
         this.x = x;
         this.y = y;
+        this.prevX = x;
+        this.prevY = y;
         this.direction = direction;
         int minDamage = 5;
         int maxDamage = (int)(playerAttack * 1.2);
-        this.damage = minDamage + (int)(Math.random() * (maxDamage - minDamage + 1));
-
-        this.secondsPerFrame = (float) frameDelay / 60.0f;
+        this.damage = minDamage + rng.nextInt(maxDamage - minDamage + 1);
 
-        frames = new BufferedImage[4];
+        this.active = true;
+        this.frame = 0;
+        this.accumulatedTime = 0f;
+        hitEnemies.clear();
     }
     
+    public void savePreviousPosition() {
+        prevX = x;
+        prevY = y;
+    }
+
+    public int getRenderX(float alpha) {
+        return Math.round(prevX + (x - prevX) * alpha);
+    }
+
+    public int getRenderY(float alpha) {
+        return Math.round(prevY + (y - prevY) * alpha);
+    }
+
     public void update(float deltaTime) {
         if (!active) return;
         accumulatedTime += deltaTime;
         if (accumulatedTime >= secondsPerFrame) {
             frame++;
             accumulatedTime -= secondsPerFrame;
-            if (frame >= frames.length) {
+            if (frame >= FRAMES.length) {
                 active = false;
             }
         }
     }
     
     public void draw(Graphics g, int screenX, int screenY) {
-        if (!active || frame >= frames.length || frames[frame] == null) return;
-        BufferedImage currentFrame = frames[frame];
+        if (!active || frame >= FRAMES.length || FRAMES[frame] == null) return;
+        BufferedImage currentFrame = FRAMES[frame];
         boolean facingLeft = (direction == SlashAttack.LEFT || direction == SlashAttack.UP_LEFT || direction == SlashAttack.DOWN_LEFT);
         
         if (facingLeft) {
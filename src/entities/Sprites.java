@@ -0,0 +1,43 @@
+package entities;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import assets.AssetLoader;
+
+public final class Sprites {
+
+    private Sprites() {
+    }
+
+    public static BufferedImage load(String path) {
+        return AssetLoader.image(path);
+    }
+
+    // Scales (and optionally mirrors) once into an image the screen can blit without conversion.
+    public static BufferedImage bake(BufferedImage src, int width, int height, boolean mirrored) {
+        if (src == null) {
+            return null;
+        }
+        BufferedImage out = createCompatibleImage(width, height);
+        Graphics2D g = out.createGraphics();
+        if (mirrored) {
+            g.drawImage(src, width, 0, -width, height, null);
+        } else {
+            g.drawImage(src, 0, 0, width, height, null);
+        }
+        g.dispose();
+        return out;
+    }
+
+    public static BufferedImage createCompatibleImage(int width, int height) {
+        if (!GraphicsEnvironment.isHeadless()) {
+            GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            return gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+}
@@ -5,6 +5,7 @@ import java.awt.*;
 import java.awt.event.*;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import assets.AssetLoader;
 
 public class StoryScreen extends JPanel {
 
@@ -72,12 +73,11 @@ public class StoryScreen extends JPanel {
     }
 
     private Image loadImage(String path) {
-        try {
-            return new ImageIcon(getClass().getResource(path)).getImage();
-        } catch (Exception e) {
+        Image image = AssetLoader.image(path);
+        if (image == null) {
             System.err.println("Failed to load image: " + path);
-            return null;
         }
+        return image;
     }
 
     class FadePanel extends JPanel {
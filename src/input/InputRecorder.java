@@ -0,0 +1,101 @@
+package input;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Writes one KeyHandler snapshot per tick, run-length encoded since keys are held for many
+// ticks. Layout, all big-endian:
+//   int MAGIC, byte VERSION, UTF mapName, long seed, short ticksPerSecond
+//   repeated { varint runLength > 0, short input }
+//   varint 0, long tickCount, long checksum      (missing if the session was cut short)
+public class InputRecorder {
+    static final int MAGIC = 0x42515250; // "BQRP"
+    static final int VERSION = 1;
+    private static final int FLUSH_EVERY_TICKS = 600;
+
+    private DataOutputStream out;
+    private int runInput = -1;
+    private int runLength;
+    private long ticks;
+
+    public InputRecorder(OutputStream stream, String mapName, long seed, int ticksPerSecond) {
+        out = new DataOutputStream(new BufferedOutputStream(stream));
+        try {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeUTF(mapName);
+            out.writeLong(seed);
+            out.writeShort(ticksPerSecond);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public synchronized void record(int input) {
+        if (out == null) return;
+        ticks++;
+        try {
+            if (input != runInput) {
+                writeRun();
+                runInput = input;
+            }
+            runLength++;
+            // a crash or a closed window loses at most the last few seconds
+            if (ticks % FLUSH_EVERY_TICKS == 0) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    // The checksum lets a replay confirm it reached the same world state.
+    public synchronized void finish(long checksum) {
+        if (out == null) return;
+        try {
+            writeRun();
+            writeVarint(0);
+            out.writeLong(ticks);
+            out.writeLong(checksum);
+        } catch (IOException e) {
+            fail(e);
+        }
+        close();
+    }
+
+    public synchronized void close() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            System.err.println("Error closing replay: " + e.getMessage());
+        }
+        out = null;
+    }
+
+    private void writeRun() throws IOException {
+        if (runLength == 0) return;
+        writeVarint(runLength);
+        out.writeShort(runInput);
+        runLength = 0;
+    }
+
+    private void writeVarint(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private void fail(IOException e) {
+        System.err.println("Replay recording stopped: " + e.getMessage());
+        close();
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+}
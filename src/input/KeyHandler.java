@@ -11,6 +11,17 @@ public class KeyHandler implements KeyListener {
 
     public boolean skillSPACE, skillW, skillB, skillN, skillM;
 
+    // one bit per flag, for per-tick snapshots and replays
+    public static final int UP = 1;
+    public static final int DOWN = 1 << 1;
+    public static final int LEFT = 1 << 2;
+    public static final int RIGHT = 1 << 3;
+    public static final int SKILL_SPACE = 1 << 4;
+    public static final int SKILL_W = 1 << 5;
+    public static final int SKILL_B = 1 << 6;
+    public static final int SKILL_N = 1 << 7;
+    public static final int SKILL_M = 1 << 8;
+
     private Map<Integer, Long> lastPressTime = new HashMap<>();
     private final long DEBOUNCE_DELAY = 50;
 
@@ -59,4 +70,39 @@ public class KeyHandler implements KeyListener {
             case KeyEvent.VK_M: skillM = false; break;
         }
     }
+
+    public int snapshot() {
+        int bits = 0;
+        if (upPressed) bits |= UP;
+        if (downPressed) bits |= DOWN;
+        if (leftPressed) bits |= LEFT;
+        if (rightPressed) bits |= RIGHT;
+        if (skillSPACE) bits |= SKILL_SPACE;
+        if (skillW) bits |= SKILL_W;
+        if (skillB) bits |= SKILL_B;
+        if (skillN) bits |= SKILL_N;
+        if (skillM) bits |= SKILL_M;
+        return bits;
+    }
+
+    public void apply(int bits) {
+        upPressed = (bits & UP) != 0;
+        downPressed = (bits & DOWN) != 0;
+        leftPressed = (bits & LEFT) != 0;
+        rightPressed = (bits & RIGHT) != 0;
+        skillSPACE = (bits & SKILL_SPACE) != 0;
+        skillW = (bits & SKILL_W) != 0;
+        skillB = (bits & SKILL_B) != 0;
+        skillN = (bits & SKILL_N) != 0;
+        skillM = (bits & SKILL_M) != 0;
+    }
+
+    // Clears skill presses the game has used up; held movement keys are left alone.
+    public void consume(int bits) {
+        if ((bits & SKILL_SPACE) != 0) skillSPACE = false;
+        if ((bits & SKILL_W) != 0) skillW = false;
+        if ((bits & SKILL_B) != 0) skillB = false;
+        if ((bits & SKILL_N) != 0) skillN = false;
+        if ((bits & SKILL_M) != 0) skillM = false;
+    }
 }
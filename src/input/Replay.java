@@ -0,0 +1,120 @@
+package input;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// A recording read back from an InputRecorder file, stepped through one tick at a time.
+public class Replay {
+    private final String mapName;
+    private final long seed;
+    private final int ticksPerSecond;
+    private int[] runLengths = new int[64];
+    private int[] runInputs = new int[64];
+    private int runCount;
+    private long tickCount;
+    private boolean complete;
+    private long checksum;
+
+    private int run;
+    private int usedInRun;
+
+    public static Replay load(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return new Replay(new DataInputStream(new BufferedInputStream(in)));
+        }
+    }
+
+    private Replay(DataInputStream in) throws IOException {
+        if (in.readInt() != InputRecorder.MAGIC) {
+            throw new IOException("Not a replay file");
+        }
+        int version = in.readUnsignedByte();
+        if (version != InputRecorder.VERSION) {
+            throw new IOException("Unsupported replay version " + version);
+        }
+        mapName = in.readUTF();
+        seed = in.readLong();
+        ticksPerSecond = in.readUnsignedShort();
+
+        try {
+            while (true) {
+                int length = readVarint(in);
+                if (length == 0) {
+                    long recordedTicks = in.readLong();
+                    checksum = in.readLong();
+                    complete = recordedTicks == tickCount;
+                    break;
+                }
+                addRun(length, in.readUnsignedShort());
+            }
+        } catch (EOFException e) {
+            // recording was cut off; play what made it to disk
+        }
+    }
+
+    private void addRun(int length, int input) {
+        if (runCount == runLengths.length) {
+            runLengths = Arrays.copyOf(runLengths, runCount * 2);
+            runInputs = Arrays.copyOf(runInputs, runCount * 2);
+        }
+        runLengths[runCount] = length;
+        runInputs[runCount] = input;
+        runCount++;
+        tickCount += length;
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed replay run length");
+    }
+
+    public boolean hasNext() {
+        return run < runCount;
+    }
+
+    // KeyHandler bits for the next tick.
+    public int next() {
+        int input = runInputs[run];
+        if (++usedInRun == runLengths[run]) {
+            run++;
+            usedInRun = 0;
+        }
+        return input;
+    }
+
+    public String getMapName() {
+        return mapName;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getTicksPerSecond() {
+        return ticksPerSecond;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    // True when the file has its trailer, so getChecksum() is the recorded end state.
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public long getChecksum() {
+        return checksum;
+    }
+}
@@ -0,0 +1,196 @@
+package log;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Game-thread-safe logging. Callers only copy a template and up to two numbers into a
+// preallocated ring; a daemon thread formats and writes them. A full ring drops events
+// rather than block, and a disabled level returns before touching anything.
+//   -Dlog.level=DEBUG|INFO|WARN|ERROR|OFF   (default INFO)
+//   -Dlog.file=game.log                     (default: the console)
+public final class Log {
+    public static final int DEBUG = 0;
+    public static final int INFO = 1;
+    public static final int WARN = 2;
+    public static final int ERROR = 3;
+    public static final int OFF = 4;
+
+    private static final String[] LEVEL_NAMES = { "DEBUG", "INFO ", "WARN ", "ERROR" };
+    private static final int CAPACITY = 1 << 13;
+    private static final int MASK = CAPACITY - 1;
+    private static final long IDLE_PARK_NANOS = 2_000_000L;
+
+    private static volatile int level = parseLevel(System.getProperty("log.level", "INFO"));
+
+    // slot i holds event seq when published[i] == seq + 1
+    private static final String[] templates = new String[CAPACITY];
+    private static final long[] firstArgs = new long[CAPACITY];
+    private static final long[] secondArgs = new long[CAPACITY];
+    private static final byte[] argCounts = new byte[CAPACITY];
+    private static final byte[] levels = new byte[CAPACITY];
+    private static final long[] times = new long[CAPACITY];
+    private static final AtomicLongArray published = new AtomicLongArray(CAPACITY);
+    private static final AtomicLong head = new AtomicLong();
+    private static volatile long tail;
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final long startNanos = System.nanoTime();
+
+    private static final Writer out = openSink(System.getProperty("log.file"));
+    private static final StringBuilder line = new StringBuilder(128);
+
+    static {
+        startDrainer();
+    }
+
+    private Log() {
+    }
+
+    public static void setLevel(int newLevel) {
+        level = newLevel;
+    }
+
+    public static boolean isEnabled(int atLevel) {
+        return atLevel >= level;
+    }
+
+    public static void debug(String message) { log(DEBUG, message, 0, 0, 0); }
+    public static void debug(String template, long a) { log(DEBUG, template, 1, a, 0); }
+    public static void debug(String template, long a, long b) { log(DEBUG, template, 2, a, b); }
+
+    public static void info(String message) { log(INFO, message, 0, 0, 0); }
+    public static void info(String template, long a) { log(INFO, template, 1, a, 0); }
+    public static void info(String template, long a, long b) { log(INFO, template, 2, a, b); }
+
+    public static void warn(String message) { log(WARN, message, 0, 0, 0); }
+    public static void warn(String template, long a) { log(WARN, template, 1, a, 0); }
+
+    public static void error(String message) { log(ERROR, message, 0, 0, 0); }
+    public static void error(String template, long a) { log(ERROR, template, 1, a, 0); }
+
+    // {} in the template is replaced by the arguments in order, on the drain thread.
+    private static void log(int atLevel, String template, int argCount, long a, long b) {
+        if (atLevel < level) {
+            return;
+        }
+        long seq;
+        do {
+            seq = head.get();
+            if (seq - tail >= CAPACITY) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!head.compareAndSet(seq, seq + 1));
+
+        int slot = (int) (seq & MASK);
+        templates[slot] = template;
+        firstArgs[slot] = a;
+        secondArgs[slot] = b;
+        argCounts[slot] = (byte) argCount;
+        levels[slot] = (byte) atLevel;
+        times[slot] = System.nanoTime();
+        published.set(slot, seq + 1);
+    }
+
+    private static void startDrainer() {
+        Thread t = new Thread(() -> {
+            while (true) {
+                if (drain() == 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        }, "log-drain");
+        t.setDaemon(true);
+        t.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::flush, "log-flush"));
+    }
+
+    // Writes everything published so far; returns how many events that was.
+    private static synchronized int drain() {
+        int count = 0;
+        long seq = tail;
+        try {
+            while (true) {
+                int slot = (int) (seq & MASK);
+                if (published.get(slot) != seq + 1) break;
+                format(slot);
+                templates[slot] = null;
+                out.write(line.toString());
+                seq++;
+                tail = seq;
+                count++;
+            }
+            long lost = dropped.getAndSet(0);
+            if (lost > 0) {
+                out.write("[log] dropped " + lost + " events, ring was full\n");
+            }
+            if (count > 0 || lost > 0) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            // nowhere left to report it; keep draining so callers never fill up
+            tail = seq;
+        }
+        return count;
+    }
+
+    private static void format(int slot) {
+        line.setLength(0);
+        long millis = (times[slot] - startNanos) / 1_000_000L;
+        line.append('[').append(millis / 1000).append('.');
+        long frac = millis % 1000;
+        if (frac < 100) line.append('0');
+        if (frac < 10) line.append('0');
+        line.append(frac).append("] ").append(LEVEL_NAMES[levels[slot]]).append(' ');
+
+        String template = templates[slot];
+        int args = argCounts[slot];
+        int from = 0;
+        for (int i = 0; i < args; i++) {
+            int at = template.indexOf("{}", from);
+            if (at < 0) break;
+            line.append(template, from, at).append(i == 0 ? firstArgs[slot] : secondArgs[slot]);
+            from = at + 2;
+        }
+        line.append(template, from, template.length()).append('\n');
+    }
+
+    // Blocks until everything logged so far is written; for shutdown and tests, not the game loop.
+    public static void flush() {
+        while (tail < head.get()) {
+            if (drain() == 0) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private static Writer openSink(String file) {
+        if (file != null) {
+            try {
+                return Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                System.err.println("Could not open log file " + file + ": " + e.getMessage());
+            }
+        }
+        return new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+    }
+
+    private static int parseLevel(String name) {
+        switch (name.trim().toUpperCase()) {
+            case "DEBUG": return DEBUG;
+            case "WARN": return WARN;
+            case "ERROR": return ERROR;
+            case "OFF": return OFF;
+            default: return INFO;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package main;
+
+import java.util.concurrent.locks.LockSupport;
+
+public class FrameScheduler {
+    // park until this close to the deadline, then yield the rest so we don't oversleep
+    private static final long PARK_MARGIN_NANOS = 1_500_000L;
+
+    private final long tickNanos;
+    private final int maxCatchUpTicks;
+
+    private volatile long nextTickTime;
+    private volatile boolean wakeRequested;
+    private long totalTicks;
+    private long lateTicks;
+    private long skippedTicks;
+
+    public FrameScheduler(int ticksPerSecond, int maxCatchUpTicks) {
+        this.tickNanos = 1_000_000_000L / ticksPerSecond;
+        this.maxCatchUpTicks = maxCatchUpTicks;
+        reset();
+    }
+
+    public void reset() {
+        nextTickTime = System.nanoTime() + tickNanos;
+        totalTicks = 0;
+        lateTicks = 0;
+        skippedTicks = 0;
+    }
+
+    // Ticks beyond the catch-up cap are dropped and counted as skipped
+    // instead of replayed, so a long stall can't spiral into more updates.
+    public int ticksDue() {
+        long now = System.nanoTime();
+        if (now < nextTickTime) {
+            return 0;
+        }
+
+        long behind = (now - nextTickTime) / tickNanos + 1;
+        int due = (int) Math.min(behind, maxCatchUpTicks);
+
+        if (behind > maxCatchUpTicks) {
+            skippedTicks += behind - maxCatchUpTicks;
+        }
+        lateTicks += due - 1;
+        totalTicks += due;
+        nextTickTime += behind * tickNanos;
+        return due;
+    }
+
+    public void waitForNextTick() {
+        waitUntil(nextTickTime);
+    }
+
+    // Waits for the deadline, or until another thread calls wake().
+    public void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (wakeRequested) {
+                break;
+            }
+            if (remaining > PARK_MARGIN_NANOS) {
+                LockSupport.parkNanos(this, remaining - PARK_MARGIN_NANOS);
+            } else {
+                Thread.yield();
+            }
+        }
+        wakeRequested = false;
+    }
+
+    public void wake(Thread waiter) {
+        wakeRequested = true;
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    // How far we are between the last simulated tick and the next one, 0..1.
+    public float getAlpha() {
+        long sinceLastTick = System.nanoTime() - (nextTickTime - tickNanos);
+        float alpha = (float) sinceLastTick / tickNanos;
+        return Math.max(0f, Math.min(1f, alpha));
+    }
+
+    public long getNextTickTime() {
+        return nextTickTime;
+    }
+
+    public float getDeltaSeconds() {
+        return tickNanos / 1_000_000_000.0f;
+    }
+
+    public long getTotalTicks() {
+        return totalTicks;
+    }
+
+    public long getLateTicks() {
+        return lateTicks;
+    }
+
+    public long getSkippedTicks() {
+        return skippedTicks;
+    }
+
+    @Override
+    public String toString() {
+        return "ticks=" + totalTicks + " late=" + lateTicks + " skipped=" + skippedTicks;
+    }
+}
@@ -3,56 +3,92 @@ package main;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import input.InputRecorder;
 import input.KeyHandler;
 import entities.Player;
-import entities.Enemy;
+import entities.EnemyStore;
 import entities.SlashAttack;
 import entities.SkillWAttack;
 import entities.InventoryUI;
 import entities.Hotbar;
+import maps.ChunkedWorld;
 import maps.Map;
 import maps.MapLoader;
+import log.Log;
 
 public class GameLoop extends JLayeredPane implements Runnable { 
 	
     final int WIDTH = 800;
     final int HEIGHT = 600;
-    final int TILE_SIZE = 48;
+    static final int TILE_SIZE = 48;
+    final int TICKS_PER_SECOND = 60;
+    final int MAX_CATCH_UP_TICKS = 5;
+    final long FRAME_TIMEOUT_NANOS = 250_000_000L;
+
+    public static final int RENDER_UNCAPPED = 0;
+    public static final int RENDER_MONITOR_RATE = -1;
+
+    // run with -Dreplay.dir=<dir> to record every game for ReplayRunner
+    private static final String REPLAY_DIR = System.getProperty("replay.dir");
+    private static final String MAP_NAME = "forest";
+    // run with -Dworld.file=<file from maps.WorldPacker> to stream the map from disk
+    private static final String WORLD_FILE = System.getProperty("world.file");
+    private static final int WORLD_CACHE_CHUNKS = Integer.getInteger("world.cache.chunks", 64);
 
     private boolean inventoryOpen = false;
     private InventoryUI gameInventory;
 
-    private Thread gameThread;
+    private volatile Thread gameThread;
+    private final FrameScheduler scheduler = new FrameScheduler(TICKS_PER_SECOND, MAX_CATCH_UP_TICKS);
+    private int targetFps = RENDER_MONITOR_RATE;
+    private volatile boolean framePending = false;
+    private volatile long startedAt = 0;
+
+    private boolean activeRendering = true;
+    private Canvas canvas;
+    private BufferStrategy bufferStrategy;
     private KeyHandler keyH;
-    private Player player;
-    private ArrayList<Enemy> enemies;
     private Map map;
+    private Simulation simulation;
+    private volatile InputRecorder recorder;
     private Hotbar hotbar;
     private GameOverCallback gameOverCallback;
 
     public GameLoop(GameOverCallback gameOverCallback) {
+        this(gameOverCallback, loadWorld());
+    }
+
+    // Takes a world built by loadWorld(), so the slow part can run off the EDT.
+    public GameLoop(GameOverCallback gameOverCallback, Simulation simulation) {
         this.gameOverCallback = gameOverCallback;
+        this.simulation = simulation;
+        this.map = simulation.getMap();
 
         this.setPreferredSize(new Dimension(WIDTH, HEIGHT));
         this.setDoubleBuffered(true);
 
-        keyH = new KeyHandler();
+        keyH = simulation.getKeyHandler();
         this.setFocusable(true);
         this.requestFocusInWindow();
         this.addKeyListener(keyH);
 
         setupKeyBindings();
 
-        BufferedImage mapImage = MapLoader.loadMapImage("forest");
-        BufferedImage collisionMask = MapLoader.loadCollisionMask("forest");
-        map = new Map(mapImage, collisionMask, TILE_SIZE);
-
-        player = new Player(100, 100, keyH, map);
-
-        enemies = new ArrayList<>();
-        spawnEnemies();
+        if (REPLAY_DIR != null) {
+            // keep what was recorded if the window is closed mid-game
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                InputRecorder r = recorder;
+                if (r != null) r.close();
+            }));
+        }
 
         gameInventory = new InventoryUI(WIDTH, HEIGHT);
 
@@ -60,17 +96,71 @@ public class GameLoop extends JLayeredPane implements Runnable {
         gameInventory.setBounds(0, 0, WIDTH, HEIGHT);
         gameInventory.setVisible(false);
         this.add(gameInventory, JLayeredPane.PALETTE_LAYER);
+
+        canvas = new Canvas();
+        canvas.setBounds(0, 0, WIDTH, HEIGHT);
+        canvas.setIgnoreRepaint(true);
+        canvas.setFocusable(false);
+        this.add(canvas, JLayeredPane.DEFAULT_LAYER);
+    }
+
+    // Map, collision data, nav grids and the first world; no Swing involved.
+    public static Simulation loadWorld() {
+        if (WORLD_FILE != null) {
+            try {
+                ChunkedWorld world = new ChunkedWorld(Paths.get(WORLD_FILE), WORLD_CACHE_CHUNKS);
+                System.out.println("Streaming world from " + WORLD_FILE);
+                return new Simulation(new Map(world, TILE_SIZE), new KeyHandler());
+            } catch (IOException e) {
+                System.err.println("Could not open world " + WORLD_FILE + ", loading " + MAP_NAME + ": " + e.getMessage());
+            }
+        }
+        Map map = MapLoader.loadMap(MAP_NAME, TILE_SIZE);
+        return new Simulation(map, new KeyHandler());
+    }
+
+    // Must be chosen before start(); passive mode paints through Swing's repaint.
+    public void setActiveRendering(boolean activeRendering) {
+        this.activeRendering = activeRendering;
+        canvas.setVisible(activeRendering);
     }
 
     public void start() {
+        startedAt = System.nanoTime();
+        startRecording();
         startGameThread();
     }
 
+    // Called before the first tick of a game, so the file starts from the seeded world.
+    private void startRecording() {
+        if (REPLAY_DIR == null) {
+            return;
+        }
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path file = Paths.get(REPLAY_DIR, "replay-" + stamp + ".bqr");
+        try {
+            Files.createDirectories(file.getParent());
+            recorder = new InputRecorder(Files.newOutputStream(file), MAP_NAME,
+                    simulation.getSeed(), TICKS_PER_SECOND);
+            simulation.setRecorder(recorder);
+            System.out.println("Recording replay to " + file);
+        } catch (IOException e) {
+            System.err.println("Could not start replay " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void stopRecording() {
+        InputRecorder r = recorder;
+        if (r != null) {
+            simulation.setRecorder(null);
+            r.finish(simulation.checksum());
+            recorder = null;
+        }
+    }
+
     public void reset() {
-        player = new Player(100, 100, keyH, map);
-        
-        enemies.clear();
-        spawnEnemies();
+        stopRecording();
+        simulation.reset();
 
         gameInventory.reset();
 
@@ -105,12 +195,6 @@ public class GameLoop extends JLayeredPane implements Runnable {
         }
     }
 
-    private void spawnEnemies() {
-        enemies.add(new Enemy(400, 300, map));
-        enemies.add(new Enemy(600, 200, map));
-        enemies.add(new Enemy(200, 400, map));
-    }
-
     @Override
     public void addNotify() {
         super.addNotify();
@@ -123,132 +207,204 @@ public class GameLoop extends JLayeredPane implements Runnable {
 
     @Override
     public void run() {
-        double drawInterval = 1000000000.0 / 60.0;
-        double delta = 0;
-        long lastTime = System.nanoTime();
+        Thread thisThread = Thread.currentThread();
+        scheduler.reset();
+        framePending = false;
 
-        while (gameThread != null) {
-            long now = System.nanoTime();
-            delta += (now - lastTime) / drawInterval;
-            lastTime = now;
+        long frameNanos = frameIntervalNanos();
+        long nextFrameTime = System.nanoTime();
+        long frameRequestedAt = nextFrameTime;
 
-            if (delta >= 1) {
+        while (gameThread == thisThread) {
+            int ticks = scheduler.ticksDue();
+            for (int i = 0; i < ticks && gameThread == thisThread; i++) {
                 update();
-                repaint();
-                delta--;
             }
+
+            long now = System.nanoTime();
+            if (activeRendering) {
+                if (now - nextFrameTime >= 0) {
+                    renderActiveFrame();
+                    nextFrameTime = Math.max(nextFrameTime + frameNanos, now);
+                }
+            } else {
+                // Only one repaint is ever in flight, so the EDT never has to
+                // coalesce a backlog; paintComponent wakes us when it's done.
+                if (framePending && now - frameRequestedAt > FRAME_TIMEOUT_NANOS) {
+                    framePending = false; // the EDT dropped our request (e.g. while hidden)
+                }
+                if (!framePending && now - nextFrameTime >= 0) {
+                    framePending = true;
+                    frameRequestedAt = now;
+                    repaint();
+                    nextFrameTime = Math.max(nextFrameTime + frameNanos, now);
+                }
+            }
+
+            long deadline = scheduler.getNextTickTime();
+            if ((activeRendering || !framePending) && nextFrameTime - deadline < 0) {
+                deadline = nextFrameTime;
+            }
+            scheduler.waitUntil(deadline);
         }
+
+        System.out.println("Game loop stopped: " + scheduler);
+    }
+
+    private void renderActiveFrame() {
+        // The inventory is an opaque Swing layer over the whole canvas while open.
+        if (inventoryOpen || !canvas.isDisplayable() || !canvas.isShowing()) {
+            return;
+        }
+        if (bufferStrategy == null) {
+            canvas.createBufferStrategy(2);
+            bufferStrategy = canvas.getBufferStrategy();
+        }
+
+        float alpha = scheduler.getAlpha();
+        do {
+            do {
+                Graphics2D g2d = (Graphics2D) bufferStrategy.getDrawGraphics();
+                try {
+                    renderFrame(g2d, alpha);
+                } finally {
+                    g2d.dispose();
+                }
+            } while (bufferStrategy.contentsRestored());
+            bufferStrategy.show();
+        } while (bufferStrategy.contentsLost());
+
+        Toolkit.getDefaultToolkit().sync();
+        logFirstFrame();
+    }
+
+    private void logFirstFrame() {
+        long started = startedAt;
+        if (started != 0) {
+            startedAt = 0;
+            Log.info("First game frame {} ms after start", (System.nanoTime() - started) / 1_000_000L);
+        }
+    }
+
+    public void setTargetFps(int targetFps) {
+        this.targetFps = targetFps;
+    }
+
+    private long frameIntervalNanos() {
+        int fps = targetFps;
+        if (fps == RENDER_UNCAPPED) {
+            return 0;
+        }
+        if (fps == RENDER_MONITOR_RATE) {
+            fps = monitorRefreshRate();
+        }
+        return 1_000_000_000L / fps;
+    }
+
+    private int monitorRefreshRate() {
+        if (!GraphicsEnvironment.isHeadless()) {
+            GraphicsConfiguration gc = getGraphicsConfiguration();
+            GraphicsDevice device = gc != null ? gc.getDevice()
+                    : GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice();
+            int rate = device.getDisplayMode().getRefreshRate();
+            if (rate != DisplayMode.REFRESH_RATE_UNKNOWN && rate > 0) {
+                return rate;
+            }
+        }
+        return TICKS_PER_SECOND;
+    }
+
+    public FrameScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public Simulation getSimulation() {
+        return simulation;
     }
 
     public void update() {
         if (inventoryOpen) {
+            simulation.savePreviousPositions();
             return;
         }
 
-        float deltaTime = 1.0f / 60.0f;
-
-    	for (SlashAttack slash : player.getSlashes()) {
-    	    if (!slash.active) continue;
-    	    Rectangle slashBounds = slash.getBounds();
-    	    for (Enemy enemy : enemies) {
-    	        if (enemy.isAlive() && slashBounds.intersects(enemy.getBounds())) {
-                    if (!slash.hasHit(enemy)) {
-                        enemy.takeDamage(slash.getDamage());
-                        slash.addHitEnemy(enemy);
-                    }
-    	        }
-    	    }
-    	}
-
-    	for (SkillWAttack skillW : player.getSkillWAttacks()) {
-    	    if (!skillW.active) continue;
-    	    Rectangle skillWBounds = skillW.getBounds();
-    	    for (Enemy enemy : enemies) {
-    	        if (enemy.isAlive() && skillWBounds.intersects(enemy.getBounds())) {
-                    if (!skillW.hasHit(enemy)) {
-                        enemy.takeDamage(skillW.getDamage());
-                        skillW.addHitEnemy(enemy);
-                    }
-    	        }
-    	    }
-    	}
-
-        player.update(deltaTime); 
-
-        if (!player.isAlive() && player.isDeathAnimationFinished()) {
+        simulation.tick(scheduler.getDeltaSeconds());
+
+        if (simulation.isGameOver()) {
             gameThread = null;
+            stopRecording();
             BufferedImage screenshot = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
             Graphics2D g2d = screenshot.createGraphics();
-            paintComponent(g2d);
+            renderFrame(g2d, 1f);
             g2d.dispose();
             
             gameOverCallback.onGameOver(screenshot);
-            return;
-        }
-
-        for (Enemy enemy : enemies) {
-            enemy.update(player.getX(), player.getY(), player);
         }
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        Graphics2D g2d = (Graphics2D) g;
+        if (activeRendering) {
+            return;
+        }
 
-        int cameraX = (int) player.px - WIDTH / 2;
-        int cameraY = (int) player.py - HEIGHT / 2;
+        renderFrame((Graphics2D) g, scheduler.getAlpha());
+
+        Toolkit.getDefaultToolkit().sync();
+        logFirstFrame();
+        if (framePending) {
+            framePending = false;
+            scheduler.wake(gameThread);
+        }
+    }
+
+    private void renderFrame(Graphics2D g2d, float alpha) {
+        Graphics g = g2d;
+        Player player = simulation.getPlayer();
+        EnemyStore enemies = simulation.getEnemies();
+
+        double playerX = player.getRenderX(alpha);
+        double playerY = player.getRenderY(alpha);
+
+        int cameraX = (int) playerX - WIDTH / 2;
+        int cameraY = (int) playerY - HEIGHT / 2;
 
         cameraX = Math.max(0, Math.min(cameraX, map.getMapWidth() - WIDTH));
         cameraY = Math.max(0, Math.min(cameraY, map.getMapHeight() - HEIGHT));
 
+        double vx = (player.getRenderX(1f) - player.getRenderX(0f)) * TICKS_PER_SECOND;
+        double vy = (player.getRenderY(1f) - player.getRenderY(0f)) * TICKS_PER_SECOND;
+        map.streamAround(cameraX, cameraY, WIDTH, HEIGHT, vx, vy);
         map.render(g2d, cameraX, cameraY, WIDTH, HEIGHT);
 
-        int playerScreenX = (int) player.px - cameraX;
-        int playerScreenY = (int) player.py - cameraY;
+        int playerScreenX = (int) playerX - cameraX;
+        int playerScreenY = (int) playerY - cameraY;
 
         player.draw(g, playerScreenX, playerScreenY);
 
-        for (Enemy enemy : enemies) {
-            int enemyScreenX = enemy.getX() - cameraX;
-            int enemyScreenY = enemy.getY() - cameraY;
-            enemy.draw(g, enemyScreenX, enemyScreenY);
+        for (int i = 0; i < enemies.size(); i++) {
+            int enemyScreenX = enemies.getRenderX(i, alpha) - cameraX;
+            int enemyScreenY = enemies.getRenderY(i, alpha) - cameraY;
+            if (enemyScreenX + enemies.width < 0 || enemyScreenX > WIDTH
+                    || enemyScreenY + enemies.height < 0 || enemyScreenY - 10 > HEIGHT) {
+                continue;
+            }
+            enemies.draw(g, i, enemyScreenX, enemyScreenY);
         }
 
         for (SlashAttack s : player.getSlashes()) {
-            int slashScreenX = s.x - cameraX;
-            int slashScreenY = s.y - cameraY;
+            int slashScreenX = s.getRenderX(alpha) - cameraX;
+            int slashScreenY = s.getRenderY(alpha) - cameraY;
             s.draw(g, slashScreenX, slashScreenY);
         }
         for (SkillWAttack s : player.getSkillWAttacks()) {
-            int skillWScreenX = s.x - cameraX;
-            int skillWScreenY = s.y - cameraY;
+            int skillWScreenX = s.getRenderX(alpha) - cameraX;
+            int skillWScreenY = s.getRenderY(alpha) - cameraY;
             s.draw(g, skillWScreenX, skillWScreenY);
         }
 
         hotbar.draw(g2d);
-        drawHotbarKeys(g2d);
-    }
-
-    private void drawHotbarKeys(Graphics2D g2d) {
-        g2d.setColor(Color.WHITE);
-        g2d.setFont(new Font("Arial", Font.BOLD, 12));
-
-        int slotSize = 48;
-        int numSlots = 5;
-        int hotbarWidth = numSlots * slotSize;
-        int hotbarX = (WIDTH - hotbarWidth) / 2;
-        int hotbarY = HEIGHT - slotSize - 10;
-
-        String[] keys = {"", "", "B", "N", "M"};
-        for (int i = 2; i < numSlots; i++) {
-            String key = keys[i];
-            FontMetrics fm = g2d.getFontMetrics();
-            int stringWidth = fm.stringWidth(key);
-            int x = hotbarX + i * slotSize + (slotSize - stringWidth) / 2;
-            int y = hotbarY - 5;
-            g2d.drawString(key, x, y);
-        }
     }
 
     public interface GameOverCallback {
@@ -0,0 +1,109 @@
+package main;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+import input.InputRecorder;
+import input.KeyHandler;
+import maps.Map;
+import maps.MapLoader;
+
+// Runs the simulation with no window and no frame pacing, as fast as ticks complete.
+// A seeded bot holds random movement and attack keys, so runs with the same
+// arguments are identical; --record saves the first game for ReplayRunner.
+// Run with: java main.HeadlessRunner [ticks] [extraEnemies] [--record file.bqr]
+public class HeadlessRunner {
+    private static final int TILE_SIZE = 48;
+    private static final int TICKS_PER_SECOND = 60;
+    private static final float TICK_SECONDS = 1f / TICKS_PER_SECOND;
+    private static final String MAP_NAME = "forest";
+    private static final int BOT_HOLD_TICKS = 30;
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        long ticks = 100_000;
+        int extraEnemies = 0;
+        String recordPath = null;
+        int positional = 0;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--record")) {
+                recordPath = args[++i];
+            } else if (positional++ == 0) {
+                ticks = Long.parseLong(args[i]);
+            } else {
+                extraEnemies = Integer.parseInt(args[i]);
+            }
+        }
+
+        if (recordPath != null && extraEnemies > 0) {
+            // replays start from the standard spawn, which extra enemies would break
+            System.err.println("--record ignores extra enemies");
+            extraEnemies = 0;
+        }
+
+        Map map = MapLoader.loadMap(MAP_NAME, TILE_SIZE);
+
+        Random rand = new Random(1);
+        Simulation simulation = new Simulation(map, new KeyHandler());
+        startGame(simulation, map, rand, extraEnemies);
+
+        InputRecorder recorder = null;
+        if (recordPath != null) {
+            recorder = new InputRecorder(Files.newOutputStream(Paths.get(recordPath)), MAP_NAME,
+                    simulation.getSeed(), TICKS_PER_SECOND);
+            simulation.setRecorder(recorder);
+        }
+
+        int games = 1;
+        int input = 0;
+        long start = System.nanoTime();
+        for (long t = 0; t < ticks; t++) {
+            if (t % BOT_HOLD_TICKS == 0) {
+                input = botInput(rand);
+            }
+            simulation.tick(TICK_SECONDS, input);
+            if (simulation.isGameOver()) {
+                if (recorder != null) {
+                    finishRecording(simulation, recorder, recordPath);
+                    recorder = null;
+                }
+                startGame(simulation, map, rand, extraEnemies);
+                games++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        if (recorder != null) {
+            finishRecording(simulation, recorder, recordPath);
+        }
+        simulation.shutdown();
+
+        System.out.printf("%,d ticks with %d enemies in %.2f s: %,.0f ticks/s (%.1fx real time), %d game(s)%n",
+                ticks, simulation.getEnemies().size(), seconds, ticks / seconds,
+                ticks / seconds * TICK_SECONDS, games);
+    }
+
+    private static void startGame(Simulation simulation, Map map, Random rand, int extraEnemies) {
+        simulation.reset(rand.nextLong());
+        for (int i = 0; i < extraEnemies; i++) {
+            simulation.spawnEnemy(rand.nextInt(map.getMapWidth()), rand.nextInt(map.getMapHeight()));
+        }
+    }
+
+    private static void finishRecording(Simulation simulation, InputRecorder recorder, String path) {
+        simulation.setRecorder(null);
+        recorder.finish(simulation.checksum());
+        System.out.printf("recorded %,d ticks to %s%n", recorder.getTicks(), path);
+    }
+
+    private static int botInput(Random rand) {
+        int input = 0;
+        int move = rand.nextInt(9);
+        if (move == 1 || move == 5 || move == 6) input |= KeyHandler.UP;
+        if (move == 2 || move == 7 || move == 8) input |= KeyHandler.DOWN;
+        if (move == 3 || move == 5 || move == 7) input |= KeyHandler.LEFT;
+        if (move == 4 || move == 6 || move == 8) input |= KeyHandler.RIGHT;
+        if (rand.nextBoolean()) input |= KeyHandler.SKILL_SPACE;
+        return input;
+    }
+}
@@ -6,6 +6,10 @@ import entities.GameLandingPage;
 import entities.StoryScreen;
 import entities.GameOverScreen;
 import java.awt.image.BufferedImage;
+import java.util.List;
+import assets.AssetLoader;
+import maps.MapLoader;
+import log.Log;
 
 public class Main {
     private static JFrame window;
@@ -15,21 +19,18 @@ public class Main {
     private static GameLandingPage landingPage;
     private static StoryScreen storyScreen;
     private static GameOverScreen gameOverScreen;
+    private static boolean startRequested = false;
+
+    private static final long launchedAt = System.nanoTime();
 
     public static void main(String[] args) {
         window = new JFrame("Blade Quest");
         cardLayout = new CardLayout();
         mainPanel = new JPanel(cardLayout);
 
+        // Only the landing page is built up front; everything else loads behind it.
         landingPage = new GameLandingPage(Main::showStoryScreen);
-        storyScreen = new StoryScreen(Main::startGame);
-        gameLoop = new GameLoop(Main::showGameOverScreenWithScreenshot);
-        gameOverScreen = new GameOverScreen(Main::resetGame);
-
         mainPanel.add(landingPage, "LANDING");
-        mainPanel.add(storyScreen, "STORY");
-        mainPanel.add(gameLoop, "GAME");
-        mainPanel.add(gameOverScreen, "GAME_OVER");
 
         window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         window.setResizable(false);
@@ -39,9 +40,55 @@ public class Main {
         window.setVisible(true);
 
         cardLayout.show(mainPanel, "LANDING");
+        Log.info("Landing page shown {} ms after launch", millisSinceLaunch());
+
+        loadInBackground();
+    }
+
+    private static void loadInBackground() {
+        List<String> manifest = AssetLoader.discover(AssetLoader.IMAGE_ROOTS);
+        MapLoader.removeTiledMaps(manifest);
+        AssetLoader.preload(manifest, landingPage::setLoadingProgress)
+                .thenApply(ignored -> {
+                    Log.info("{} assets decoded {} ms after launch", manifest.size(), millisSinceLaunch());
+                    return GameLoop.loadWorld();
+                })
+                .whenComplete((simulation, error) -> SwingUtilities.invokeLater(() -> {
+                    if (error != null) {
+                        System.err.println("Loading failed: " + error);
+                        error.printStackTrace();
+                        return;
+                    }
+                    finishLoading(simulation);
+                }));
+    }
+
+    private static void finishLoading(Simulation simulation) {
+        storyScreen = new StoryScreen(Main::startGame);
+        gameLoop = new GameLoop(Main::showGameOverScreenWithScreenshot, simulation);
+        gameOverScreen = new GameOverScreen(Main::resetGame);
+
+        mainPanel.add(storyScreen, "STORY");
+        mainPanel.add(gameLoop, "GAME");
+        mainPanel.add(gameOverScreen, "GAME_OVER");
+        Log.info("World ready {} ms after launch", millisSinceLaunch());
+
+        if (startRequested) {
+            startRequested = false;
+            showStoryScreen();
+        }
+    }
+
+    private static long millisSinceLaunch() {
+        return (System.nanoTime() - launchedAt) / 1_000_000L;
     }
 
     public static void showStoryScreen() {
+        if (storyScreen == null) {
+            // PLAY clicked while still loading; go on as soon as the world is ready
+            startRequested = true;
+            return;
+        }
         new FadeTransition(window, FadeTransition.FadeType.FADE_OUT, () -> {
             cardLayout.show(mainPanel, "STORY");
             storyScreen.requestFocusInWindow();
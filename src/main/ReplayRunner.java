@@ -0,0 +1,49 @@
+package main;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import input.KeyHandler;
+import input.Replay;
+import maps.Map;
+import maps.MapLoader;
+
+// Plays a recorded game back headless at full speed and checks it ends in the recorded state.
+// Run with: java main.ReplayRunner replay.bqr
+public class ReplayRunner {
+    private static final int TILE_SIZE = 48;
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length < 1) {
+            System.err.println("Usage: java main.ReplayRunner <replay file>");
+            System.exit(2);
+        }
+
+        Replay replay = Replay.load(Paths.get(args[0]));
+        Map map = MapLoader.loadMap(replay.getMapName(), TILE_SIZE);
+
+        Simulation simulation = new Simulation(map, new KeyHandler());
+        simulation.reset(replay.getSeed());
+        float tickSeconds = 1f / replay.getTicksPerSecond();
+
+        long start = System.nanoTime();
+        while (replay.hasNext()) {
+            simulation.tick(tickSeconds, replay.next());
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        simulation.shutdown();
+
+        System.out.printf("replayed %,d ticks in %.2f s: %,.0f ticks/s (%.1fx real time)%n",
+                replay.getTickCount(), seconds, replay.getTickCount() / seconds,
+                replay.getTickCount() / seconds / replay.getTicksPerSecond());
+
+        if (!replay.isComplete()) {
+            System.out.println("recording was cut short; no end state to compare");
+        } else if (simulation.checksum() == replay.getChecksum()) {
+            System.out.println("end state matches the recording");
+        } else {
+            System.out.println("end state DIFFERS from the recording");
+            System.exit(1);
+        }
+    }
+}
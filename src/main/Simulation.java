@@ -0,0 +1,210 @@
+package main;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import input.InputRecorder;
+import input.KeyHandler;
+import entities.Player;
+import entities.Enemy;
+import entities.EnemyStore;
+import entities.SlashAttack;
+import entities.SkillWAttack;
+import maps.FlowField;
+import maps.NavGrid;
+import maps.Map;
+
+// The world update with no Swing in it: player, enemies and combat, one fixed tick at a time.
+// GameLoop drives it from its frame loop; HeadlessRunner drives it as fast as it can.
+// Given the same seed and the same per-tick input it always ends in the same state.
+public class Simulation {
+    static final int GRID_CELL_SIZE = 64;
+    static final int FLOW_CELL_SIZE = 16;
+    // on a streamed world the flow field only covers this much around the player
+    static final int FLOW_WINDOW_SIZE = 2048;
+    static final int PLAYER_START_X = 100;
+    static final int PLAYER_START_Y = 100;
+
+    private final Map map;
+    // live keys from Swing; the player only ever reads the per-tick copy
+    private final KeyHandler keyH;
+    private final KeyHandler tickKeys = new KeyHandler();
+    private final SpatialGrid enemyGrid;
+    private final EnemyStore enemies;
+    private FlowField flowField;
+    private Player player;
+    private long tickCount;
+    private long seed;
+    private Random rng;
+    private InputRecorder recorder;
+
+    public Simulation(Map map, KeyHandler keyH) {
+        this.map = map;
+        this.keyH = keyH;
+        this.enemyGrid = new SpatialGrid(map.getMapWidth(), map.getMapHeight(), GRID_CELL_SIZE);
+        this.enemies = new EnemyStore(map, 16);
+        // nothing to path around without a collision mask
+        if (map.hasCollision()) {
+            NavGrid nav = map.getWorld() != null
+                    ? new NavGrid(map, FLOW_CELL_SIZE, enemies.width, enemies.height, FLOW_WINDOW_SIZE)
+                    : new NavGrid(map, FLOW_CELL_SIZE, enemies.width, enemies.height);
+            flowField = new FlowField(nav, true);
+            map.addFlowField(flowField);
+            enemies.setFlowField(flowField);
+        }
+        reset();
+    }
+
+    public void reset() {
+        reset(new Random().nextLong());
+    }
+
+    public void reset(long seed) {
+        this.seed = seed;
+        rng = new Random(seed);
+        tickKeys.apply(0);
+        player = new Player(PLAYER_START_X, PLAYER_START_Y, tickKeys, map, rng);
+        enemies.clear();
+        enemies.setRandom(rng);
+        if (flowField != null) {
+            flowField.clear();
+        }
+        spawnEnemies();
+        tickCount = 0;
+    }
+
+    private void spawnEnemies() {
+        spawnEnemy(400, 300);
+        spawnEnemy(600, 200);
+        spawnEnemy(200, 400);
+    }
+
+    public void spawnEnemy(int x, int y) {
+        enemies.spawn(x, y);
+    }
+
+    // Keeps render interpolation still while the world is paused (e.g. inventory open).
+    public void savePreviousPositions() {
+        player.savePreviousPosition();
+        enemies.savePreviousPositions();
+    }
+
+    public void tick(float deltaTime) {
+        int input = keyH.snapshot();
+        int used = tick(deltaTime, input);
+        keyH.consume(used);
+    }
+
+    // One tick on the given KeyHandler bits (live, recorded or scripted). Returns the
+    // skill bits the player used up, so a live KeyHandler can clear those presses.
+    public int tick(float deltaTime, int input) {
+        if (recorder != null) {
+            recorder.record(input);
+        }
+        tickKeys.apply(input);
+        step(deltaTime);
+        return input & ~tickKeys.snapshot();
+    }
+
+    private void step(float deltaTime) {
+        savePreviousPositions();
+        tickCount++;
+
+        enemyGrid.rebuild(enemies);
+
+        for (SlashAttack slash : player.getSlashes()) {
+            if (!slash.active) continue;
+            int w = slash.getWidth(), h = slash.getHeight();
+            int candidates = enemyGrid.query(slash.x, slash.y, w, h);
+            for (int i = 0; i < candidates; i++) {
+                Enemy enemy = enemies.get(enemyGrid.result(i));
+                if (enemy.isAlive() && enemy.intersects(slash.x, slash.y, w, h)) {
+                    if (!slash.hasHit(enemy)) {
+                        enemy.takeDamage(slash.getDamage());
+                        slash.addHitEnemy(enemy);
+                    }
+                }
+            }
+        }
+
+        for (SkillWAttack skillW : player.getSkillWAttacks()) {
+            if (!skillW.active) continue;
+            int w = skillW.getWidth(), h = skillW.getHeight();
+            int candidates = enemyGrid.query(skillW.x, skillW.y, w, h);
+            for (int i = 0; i < candidates; i++) {
+                Enemy enemy = enemies.get(enemyGrid.result(i));
+                if (enemy.isAlive() && enemy.intersects(skillW.x, skillW.y, w, h)) {
+                    if (!skillW.hasHit(enemy)) {
+                        enemy.takeDamage(skillW.getDamage());
+                        skillW.addHitEnemy(enemy);
+                    }
+                }
+            }
+        }
+
+        player.update(deltaTime);
+
+        if (isGameOver()) {
+            return;
+        }
+
+        if (flowField != null) {
+            flowField.setTarget(player.getX(), player.getY());
+        }
+        enemies.updateAllParallel(ForkJoinPool.commonPool(), player.getX(), player.getY(), player);
+    }
+
+    // Every tick from now on goes to the recorder, until it is set back to null.
+    public void setRecorder(InputRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    // Cheap fingerprint of the world state, to check a replay ended where the recording did.
+    public long checksum() {
+        long h = seed;
+        h = h * 31 + tickCount;
+        h = h * 31 + Double.doubleToLongBits(player.px);
+        h = h * 31 + Double.doubleToLongBits(player.py);
+        h = h * 31 + player.getHp();
+        for (int i = 0; i < enemies.size(); i++) {
+            h = h * 31 + enemies.getX(i);
+            h = h * 31 + enemies.getY(i);
+            h = h * 31 + enemies.getHp(i);
+        }
+        return h;
+    }
+
+    public boolean isGameOver() {
+        return !player.isAlive() && player.isDeathAnimationFinished();
+    }
+
+    public void shutdown() {
+        if (flowField != null) {
+            map.removeFlowField(flowField);
+            flowField.shutdown();
+        }
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public EnemyStore getEnemies() {
+        return enemies;
+    }
+
+    public KeyHandler getKeyHandler() {
+        return keyH;
+    }
+
+    public Map getMap() {
+        return map;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+}
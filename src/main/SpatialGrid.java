@@ -0,0 +1,120 @@
+package main;
+
+import java.util.Arrays;
+import entities.EnemyStore;
+
+// Uniform-grid broadphase over enemy boxes, rebuilt from scratch every tick.
+public class SpatialGrid {
+    private final int cellSize;
+    private final int cols;
+    private final int rows;
+
+    private final int[] cellStart;
+    private int[] cellItems = new int[64];
+
+    private int[] results = new int[64];
+    private int resultCount;
+    private int[] seenStamp = new int[64];
+    private int queryStamp;
+
+    public SpatialGrid(int worldWidth, int worldHeight, int cellSize) {
+        this.cellSize = cellSize;
+        this.cols = Math.max(1, (worldWidth + cellSize - 1) / cellSize);
+        this.rows = Math.max(1, (worldHeight + cellSize - 1) / cellSize);
+        this.cellStart = new int[cols * rows + 1];
+    }
+
+    public void rebuild(EnemyStore enemies) {
+        int count = enemies.size();
+        int w = enemies.width, h = enemies.height;
+        if (seenStamp.length < count) {
+            seenStamp = new int[Math.max(count, seenStamp.length * 2)];
+            queryStamp = 0;
+        }
+
+        // counting sort: tally per cell, prefix-sum into offsets, then scatter
+        Arrays.fill(cellStart, 0);
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            if (!enemies.isAlive(i)) continue;
+            int ex = enemies.getX(i), ey = enemies.getY(i);
+            int c1 = col(ex), c2 = col(ex + w - 1);
+            int r1 = row(ey), r2 = row(ey + h - 1);
+            for (int r = r1; r <= r2; r++) {
+                for (int c = c1; c <= c2; c++) {
+                    cellStart[r * cols + c + 1]++;
+                    total++;
+                }
+            }
+        }
+        for (int cell = 0; cell < cols * rows; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        if (cellItems.length < total) {
+            cellItems = new int[Math.max(total, cellItems.length * 2)];
+        }
+
+        for (int i = 0; i < count; i++) {
+            if (!enemies.isAlive(i)) continue;
+            int ex = enemies.getX(i), ey = enemies.getY(i);
+            int c1 = col(ex), c2 = col(ex + w - 1);
+            int r1 = row(ey), r2 = row(ey + h - 1);
+            for (int r = r1; r <= r2; r++) {
+                for (int c = c1; c <= c2; c++) {
+                    cellItems[cellStart[r * cols + c]++] = i;
+                }
+            }
+        }
+        // the scatter pass advanced every start to the next cell's start; shift back
+        for (int cell = cols * rows; cell > 0; cell--) {
+            cellStart[cell] = cellStart[cell - 1];
+        }
+        cellStart[0] = 0;
+    }
+
+    // Collects indices of enemies whose cells overlap the box, ascending and without duplicates.
+    public int query(int x, int y, int w, int h) {
+        if (++queryStamp == 0) {
+            Arrays.fill(seenStamp, 0);
+            queryStamp = 1;
+        }
+        resultCount = 0;
+
+        int c1 = col(x), c2 = col(x + w - 1);
+        int r1 = row(y), r2 = row(y + h - 1);
+        for (int r = r1; r <= r2; r++) {
+            for (int c = c1; c <= c2; c++) {
+                int cell = r * cols + c;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int index = cellItems[k];
+                    if (seenStamp[index] != queryStamp) {
+                        seenStamp[index] = queryStamp;
+                        addResult(index);
+                    }
+                }
+            }
+        }
+        // keep hits in spawn order so combat resolves the same as a linear scan
+        Arrays.sort(results, 0, resultCount);
+        return resultCount;
+    }
+
+    public int result(int i) {
+        return results[i];
+    }
+
+    private void addResult(int index) {
+        if (resultCount == results.length) {
+            results = Arrays.copyOf(results, results.length * 2);
+        }
+        results[resultCount++] = index;
+    }
+
+    private int col(int x) {
+        return Math.max(0, Math.min(cols - 1, Math.floorDiv(x, cellSize)));
+    }
+
+    private int row(int y) {
+        return Math.max(0, Math.min(rows - 1, Math.floorDiv(y, cellSize)));
+    }
+}
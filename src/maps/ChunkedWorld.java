@@ -0,0 +1,368 @@
+package maps;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// A world image and collision mask kept on disk in square chunks (written by WorldPacker),
+// with only a bounded set of chunks in memory. Rendering never waits: a missing chunk is
+// queued for the loader thread and drawn as plain ground until it arrives. Collision
+// queries load what they touch on the spot, so the simulation sees the same world no
+// matter what happens to be resident.
+//   header:  int magic, int version, int width, int height, int chunkSize, int flags
+//   chunks:  row-major; each is chunkSize^2 ARGB ints, then chunkSize^2 blocked bits as longs
+public class ChunkedWorld {
+    static final int MAGIC = 0x42515744; // "BQWD"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+    static final int FLAG_COLLISION = 1;
+
+    // how far ahead of the camera to prefetch, in seconds of current velocity
+    private static final double LOOKAHEAD_SECONDS = 1.0;
+    // queued loads that sat longer than this many frames are for places we already left
+    private static final long STALE_FRAMES = 30;
+    private static final Color MISSING_GROUND = new Color(34, 139, 34);
+
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final int chunkSize;
+    private final int chunksX;
+    private final int chunksY;
+    private final int wordsPerRow;
+    private final boolean collision;
+    private final long recordBytes;
+    private final int maxResident;
+
+    private final AtomicReferenceArray<Chunk> resident;
+    private final long[] requestedAt;
+    private final Object loadLock = new Object();
+    private int residentCount = 0;
+    // frames seen by streamAround, for telling stale load requests apart
+    private volatile long clock = 1;
+    // advanced on every chunk use from any thread, so recency holds without rendering too
+    private final AtomicLong uses = new AtomicLong();
+    private final ExecutorService loader;
+
+    private long loads = 0;
+    private long evictions = 0;
+    private long placeholderDraws = 0;
+
+    static final class Chunk {
+        final BufferedImage image;
+        final long[] blocked;
+        volatile long lastUsed;
+
+        Chunk(BufferedImage image, long[] blocked, long lastUsed) {
+            this.image = image;
+            this.blocked = blocked;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    public ChunkedWorld(Path file, int maxResident) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+        }
+        header.flip();
+        if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            channel.close();
+            throw new IOException(file + " is not a version " + VERSION + " world file");
+        }
+        width = header.getInt();
+        height = header.getInt();
+        chunkSize = header.getInt();
+        collision = (header.getInt() & FLAG_COLLISION) != 0;
+        if (chunkSize <= 0 || chunkSize % 64 != 0) {
+            channel.close();
+            throw new IOException("chunk size " + chunkSize + " is not a multiple of 64");
+        }
+
+        chunksX = (width + chunkSize - 1) / chunkSize;
+        chunksY = (height + chunkSize - 1) / chunkSize;
+        wordsPerRow = chunkSize / 64;
+        recordBytes = recordBytes(chunkSize);
+        this.maxResident = Math.max(1, maxResident);
+        resident = new AtomicReferenceArray<>(chunksX * chunksY);
+        requestedAt = new long[chunksX * chunksY];
+
+        loader = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "chunk-loader");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    static long recordBytes(int chunkSize) {
+        long pixels = (long) chunkSize * chunkSize;
+        return pixels * 4 + pixels / 8;
+    }
+
+    // Called once per frame with the clamped camera and the player's velocity in px/s.
+    public void streamAround(int cameraX, int cameraY, int viewWidth, int viewHeight, double vx, double vy) {
+        long now = ++clock;
+        int margin = chunkSize / 2;
+        request(cameraX - margin, cameraY - margin, viewWidth + 2 * margin, viewHeight + 2 * margin, now);
+
+        int aheadX = (int) (vx * LOOKAHEAD_SECONDS);
+        int aheadY = (int) (vy * LOOKAHEAD_SECONDS);
+        if (aheadX != 0 || aheadY != 0) {
+            request(cameraX + aheadX, cameraY + aheadY, viewWidth, viewHeight, now);
+        }
+    }
+
+    private void request(int x, int y, int w, int h, long now) {
+        int cx1 = clampX(Math.floorDiv(x, chunkSize));
+        int cy1 = clampY(Math.floorDiv(y, chunkSize));
+        int cx2 = clampX(Math.floorDiv(x + w - 1, chunkSize));
+        int cy2 = clampY(Math.floorDiv(y + h - 1, chunkSize));
+        for (int cy = cy1; cy <= cy2; cy++) {
+            for (int cx = cx1; cx <= cx2; cx++) {
+                int index = cy * chunksX + cx;
+                Chunk c = resident.get(index);
+                if (c != null) {
+                    c.lastUsed = uses.incrementAndGet();
+                } else {
+                    requestAsync(index, now);
+                }
+            }
+        }
+    }
+
+    private void requestAsync(int index, long now) {
+        synchronized (loadLock) {
+            if (requestedAt[index] != 0) {
+                requestedAt[index] = now; // still wanted; keeps it from going stale
+                return;
+            }
+            requestedAt[index] = now;
+        }
+        loader.execute(() -> {
+            synchronized (loadLock) {
+                boolean stale = clock - requestedAt[index] > STALE_FRAMES;
+                requestedAt[index] = 0;
+                if (stale) {
+                    return;
+                }
+            }
+            try {
+                chunk(index);
+            } catch (UncheckedIOException e) {
+                System.err.println("Could not stream chunk " + index + ": " + e.getCause().getMessage());
+            }
+        });
+    }
+
+    // The chunk at index, read from disk first if it isn't resident.
+    private Chunk chunk(int index) {
+        Chunk c = resident.get(index);
+        if (c != null) {
+            c.lastUsed = uses.incrementAndGet();
+            return c;
+        }
+        // Read outside the lock so the render thread is never stuck behind the disk;
+        // if two threads race for the same chunk, the first one in wins.
+        Chunk loaded = read(index);
+        synchronized (loadLock) {
+            c = resident.get(index);
+            if (c == null) {
+                if (residentCount >= maxResident) {
+                    evictLeastRecent();
+                }
+                c = loaded;
+                resident.set(index, c);
+                residentCount++;
+                loads++;
+            }
+            return c;
+        }
+    }
+
+    private void evictLeastRecent() {
+        int victim = -1;
+        long oldest = Long.MAX_VALUE;
+        for (int i = 0; i < resident.length(); i++) {
+            Chunk c = resident.get(i);
+            if (c != null && c.lastUsed < oldest) {
+                oldest = c.lastUsed;
+                victim = i;
+            }
+        }
+        if (victim >= 0) {
+            resident.set(victim, null);
+            residentCount--;
+            evictions++;
+        }
+    }
+
+    private Chunk read(int index) {
+        ByteBuffer buf = ByteBuffer.allocate((int) recordBytes);
+        long position = HEADER_BYTES + index * recordBytes;
+        try {
+            while (buf.hasRemaining()) {
+                if (channel.read(buf, position + buf.position()) < 0) {
+                    throw new IOException("world file is truncated at chunk " + index);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buf.flip();
+
+        int pixels = chunkSize * chunkSize;
+        int[] argb = new int[pixels];
+        buf.asIntBuffer().get(argb);
+        BufferedImage image = new BufferedImage(chunkSize, chunkSize, BufferedImage.TYPE_INT_ARGB);
+        WritableRaster raster = image.getRaster();
+        raster.setDataElements(0, 0, chunkSize, chunkSize, argb);
+
+        long[] blocked = null;
+        if (collision) {
+            blocked = new long[pixels / 64];
+            buf.position(pixels * 4);
+            buf.asLongBuffer().get(blocked);
+        }
+        return new Chunk(image, blocked, uses.incrementAndGet());
+    }
+
+    public void render(Graphics2D g2d, int cameraX, int cameraY, int screenWidth, int screenHeight) {
+        int cx1 = clampX(cameraX / chunkSize);
+        int cy1 = clampY(cameraY / chunkSize);
+        int cx2 = clampX((cameraX + screenWidth - 1) / chunkSize);
+        int cy2 = clampY((cameraY + screenHeight - 1) / chunkSize);
+        long now = clock;
+
+        for (int cy = cy1; cy <= cy2; cy++) {
+            for (int cx = cx1; cx <= cx2; cx++) {
+                int index = cy * chunksX + cx;
+                int sx = cx * chunkSize - cameraX;
+                int sy = cy * chunkSize - cameraY;
+                Chunk c = resident.get(index);
+                if (c != null) {
+                    c.lastUsed = uses.incrementAndGet();
+                    g2d.drawImage(c.image, sx, sy, null);
+                } else {
+                    placeholderDraws++;
+                    requestAsync(index, now);
+                    g2d.setColor(MISSING_GROUND);
+                    g2d.fillRect(sx, sy, chunkSize, chunkSize);
+                }
+            }
+        }
+    }
+
+    // Same clamping as Collision.isBlocked, so boxes hanging off the edge test the border.
+    public boolean isBlocked(int x, int y, int w, int h) {
+        if (!collision) return false;
+
+        int x1 = Math.max(0, Math.min(width - 1, x));
+        int y1 = Math.max(0, Math.min(height - 1, y));
+        int x2 = Math.max(0, Math.min(width - 1, x + w - 1));
+        int y2 = Math.max(0, Math.min(height - 1, y + h - 1));
+
+        for (int cy = y1 / chunkSize; cy <= y2 / chunkSize; cy++) {
+            int oy = cy * chunkSize;
+            int ly1 = Math.max(y1, oy) - oy;
+            int ly2 = Math.min(y2, oy + chunkSize - 1) - oy;
+            for (int cx = x1 / chunkSize; cx <= x2 / chunkSize; cx++) {
+                int ox = cx * chunkSize;
+                int lx1 = Math.max(x1, ox) - ox;
+                int lx2 = Math.min(x2, ox + chunkSize - 1) - ox;
+                long[] bits = chunk(cy * chunksX + cx).blocked;
+                for (int ly = ly1; ly <= ly2; ly++) {
+                    if (anyInRow(bits, ly * wordsPerRow, lx1, lx2)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // Whether any bit in columns [x1..x2] of the row starting at word rowBase is set.
+    private static boolean anyInRow(long[] bits, int rowBase, int x1, int x2) {
+        int w1 = x1 >>> 6;
+        int w2 = x2 >>> 6;
+        long first = -1L << (x1 & 63);
+        long last = -1L >>> (63 - (x2 & 63));
+        if (w1 == w2) {
+            return (bits[rowBase + w1] & first & last) != 0;
+        }
+        if ((bits[rowBase + w1] & first) != 0) return true;
+        for (int w = w1 + 1; w < w2; w++) {
+            if (bits[rowBase + w] != 0) return true;
+        }
+        return (bits[rowBase + w2] & last) != 0;
+    }
+
+    public boolean isResident(int worldX, int worldY) {
+        return resident.get(clampY(worldY / chunkSize) * chunksX + clampX(worldX / chunkSize)) != null;
+    }
+
+    private int clampX(int cx) {
+        return Math.max(0, Math.min(chunksX - 1, cx));
+    }
+
+    private int clampY(int cy) {
+        return Math.max(0, Math.min(chunksY - 1, cy));
+    }
+
+    public void close() {
+        loader.shutdownNow();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Could not close world file: " + e.getMessage());
+        }
+    }
+
+    public boolean hasCollision() {
+        return collision;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getResidentCount() {
+        synchronized (loadLock) {
+            return residentCount;
+        }
+    }
+
+    public long getPlaceholderDraws() {
+        return placeholderDraws;
+    }
+
+    public int getMaxResident() {
+        return maxResident;
+    }
+
+    @Override
+    public String toString() {
+        synchronized (loadLock) {
+            return String.format("%dx%d world, %d/%d chunks of %dpx resident, %d loads, %d evictions, %d placeholder draws",
+                    width, height, residentCount, chunksX * chunksY, chunkSize, loads, evictions, placeholderDraws);
+        }
+    }
+}
@@ -1,51 +1,118 @@
 package maps;
 
-import java.awt.*;
 import java.awt.image.BufferedImage;
 
 public class Collision {
-    private BufferedImage mask;
+    // one bit per mask pixel, row-major; set means blocked
+    private long[] blockedBits;
+    // summed-area table over the blocked bits, (maskWidth + 1) x (maskHeight + 1)
+    private int[] blockedSums;
+    private int maskWidth;
+    private int maskHeight;
 
     public Collision(BufferedImage mask) {
-        this.mask = mask;
+        compile(mask);
     }
 
     public Collision() {
     }
 
     public void loadCollisionMask(String mapName) {
-        this.mask = MapLoader.loadCollisionMask(mapName);
-        if (this.mask != null) {
+        BufferedImage mask = MapLoader.loadCollisionMask(mapName);
+        compile(mask);
+        if (mask != null) {
             System.out.println("Loaded collision mask for: " + mapName);
         } else {
             System.err.println("Failed to load collision mask for: " + mapName);
         }
     }
 
-    public boolean isBlocked(int x, int y, int w, int h) {
-        if (mask == null) return false;
+    private void compile(BufferedImage mask) {
+        if (mask == null) {
+            blockedBits = null;
+            blockedSums = null;
+            return;
+        }
+
+        maskWidth = mask.getWidth();
+        maskHeight = mask.getHeight();
+        blockedBits = new long[(int) (((long) maskWidth * maskHeight + 63) >>> 6)];
+
+        int[] row = new int[maskWidth];
+        for (int y = 0; y < maskHeight; y++) {
+            mask.getRGB(0, y, maskWidth, 1, row, 0, maskWidth);
+            int base = y * maskWidth;
+            for (int x = 0; x < maskWidth; x++) {
+                if (isBlockedColor(row[x])) {
+                    int i = base + x;
+                    blockedBits[i >>> 6] |= 1L << i;
+                }
+            }
+        }
+
+        buildSummedAreaTable();
+    }
 
-        int mapW = mask.getWidth();
-        int mapH = mask.getHeight();
+    // Dark mask pixels block movement.
+    static boolean isBlockedColor(int rgb) {
+        int brightness = ((rgb >> 16) & 0xFF) + ((rgb >> 8) & 0xFF) + (rgb & 0xFF);
+        return brightness < 100;
+    }
 
-        int checkX1 = Math.max(0, Math.min(mapW - 1, x));
-        int checkY1 = Math.max(0, Math.min(mapH - 1, y));
-        int checkX2 = Math.max(0, Math.min(mapW - 1, x + w - 1));
-        int checkY2 = Math.max(0, Math.min(mapH - 1, y + h - 1));
+    private void buildSummedAreaTable() {
+        int stride = maskWidth + 1;
+        blockedSums = new int[stride * (maskHeight + 1)];
+        for (int y = 0; y < maskHeight; y++) {
+            int rowSum = 0;
+            int base = y * maskWidth;
+            int above = y * stride;
+            int here = above + stride;
+            for (int x = 0; x < maskWidth; x++) {
+                int i = base + x;
+                if ((blockedBits[i >>> 6] & (1L << i)) != 0) rowSum++;
+                blockedSums[here + x + 1] = blockedSums[above + x + 1] + rowSum;
+            }
+        }
+    }
 
-        return isPixelBlocked(checkX1, checkY1) ||
-               isPixelBlocked(checkX2, checkY1) ||
-               isPixelBlocked(checkX1, checkY2) ||
-               isPixelBlocked(checkX2, checkY2);
+    // Number of blocked pixels in the inclusive rectangle [x1..x2] x [y1..y2].
+    private int countBlocked(int x1, int y1, int x2, int y2) {
+        int stride = maskWidth + 1;
+        int top = y1 * stride;
+        int bottom = (y2 + 1) * stride;
+        return blockedSums[bottom + x2 + 1] - blockedSums[top + x2 + 1]
+             - blockedSums[bottom + x1] + blockedSums[top + x1];
     }
 
-    private boolean isPixelBlocked(int x, int y) {
-        if (x < 0 || x >= mask.getWidth() || y < 0 || y >= mask.getHeight()) {
+    public boolean isBlocked(int x, int y, int w, int h) {
+        if (blockedBits == null) return false;
+
+        int checkX1 = Math.max(0, Math.min(maskWidth - 1, x));
+        int checkY1 = Math.max(0, Math.min(maskHeight - 1, y));
+        int checkX2 = Math.max(0, Math.min(maskWidth - 1, x + w - 1));
+        int checkY2 = Math.max(0, Math.min(maskHeight - 1, y + h - 1));
+
+        return countBlocked(checkX1, checkY1, checkX2, checkY2) > 0;
+    }
+
+    public boolean isPixelBlocked(int x, int y) {
+        if (blockedBits == null) return false;
+        if (x < 0 || x >= maskWidth || y < 0 || y >= maskHeight) {
             return true;
         }
-        int rgb = mask.getRGB(x, y);
-        Color c = new Color(rgb, true);
-        int brightness = c.getRed() + c.getGreen() + c.getBlue();
-        return brightness < 100;
+        int i = y * maskWidth + x;
+        return (blockedBits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    public boolean hasMask() {
+        return blockedBits != null;
+    }
+
+    public int getWidth() {
+        return maskWidth;
+    }
+
+    public int getHeight() {
+        return maskHeight;
     }
 }
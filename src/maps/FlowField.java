@@ -0,0 +1,213 @@
+package maps;
+
+import java.awt.Rectangle;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// One shortest-path field toward the player over a NavGrid, shared by every chasing enemy.
+public class FlowField {
+    public static final int NONE = -1;
+
+    private static final double[] DIR_X = new double[8];
+    private static final double[] DIR_Y = new double[8];
+
+    static {
+        for (int d = 0; d < 8; d++) {
+            int sx = NavGrid.STEP_X[d], sy = NavGrid.STEP_Y[d];
+            double len = Math.sqrt(sx * sx + sy * sy);
+            DIR_X[d] = sx / len;
+            DIR_Y[d] = sy / len;
+        }
+    }
+
+    // A background build is swapped in this many ticks after it was requested, waiting
+    // for it if it isn't done, so which field a tick sees never depends on thread timing.
+    private static final int PUBLISH_DELAY_TICKS = 2;
+
+    private final NavGrid grid;
+
+    // published whole, so readers on any thread always see one consistent field
+    private volatile Field field;
+    private int requestedTarget = NONE;
+    private long tick;
+
+    private final ExecutorService worker;
+    private final ArrayDeque<PendingBuild> pending = new ArrayDeque<>();
+    // collision changes reported from any thread, applied to the grid on the next tick
+    private final ArrayDeque<Rectangle> changed = new ArrayDeque<>();
+
+    // Directions per cell of the grid snapshot they were built on, which fixes the window
+    // they cover even after the live grid has moved on.
+    private static final class Field {
+        final NavGrid grid;
+        final byte[] directions;
+
+        Field(NavGrid grid, byte[] directions) {
+            this.grid = grid;
+            this.directions = directions;
+        }
+    }
+
+    private static final class PendingBuild {
+        final long dueTick;
+        final Future<Field> result;
+
+        PendingBuild(long dueTick, Future<Field> result) {
+            this.dueTick = dueTick;
+            this.result = result;
+        }
+    }
+
+    public FlowField(NavGrid grid, boolean background) {
+        this.grid = grid;
+
+        this.worker = background ? Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "flow-field");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+    }
+
+    // Call once per tick. Publishes the build that is due, then requests a new one
+    // if the target moved to another cell or the grid's window moved.
+    public void setTarget(int worldX, int worldY) {
+        tick++;
+        if (!pending.isEmpty() && pending.peek().dueTick <= tick) {
+            field = join(pending.poll().result);
+        }
+
+        if (applyCollisionChanges() | grid.moveWindow(worldX, worldY)) {
+            requestedTarget = NONE;
+        }
+        int target = grid.cellAt(worldX, worldY);
+        if (target == requestedTarget || target < 0) {
+            return;
+        }
+        requestedTarget = target;
+
+        NavGrid snapshot = grid.snapshot();
+        if (worker == null) {
+            field = build(snapshot, target);
+        } else {
+            pending.add(new PendingBuild(tick + PUBLISH_DELAY_TICKS, worker.submit(() -> build(snapshot, target))));
+        }
+    }
+
+    // Call after the collision mask changed inside the world rectangle; the next
+    // setTarget re-reads those cells and builds a new field even if the target stayed put.
+    public void collisionChanged(int x, int y, int w, int h) {
+        synchronized (changed) {
+            changed.add(new Rectangle(x, y, w, h));
+        }
+    }
+
+    private boolean applyCollisionChanges() {
+        boolean any = false;
+        synchronized (changed) {
+            for (Rectangle r : changed) {
+                any |= grid.refresh(r.x, r.y, r.width, r.height) != null;
+            }
+            changed.clear();
+        }
+        return any;
+    }
+
+    private Field join(Future<Field> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return field;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Flow field build failed", e.getCause());
+        }
+    }
+
+    // Back to no field at all, as on a fresh map.
+    public void clear() {
+        for (PendingBuild build : pending) {
+            build.result.cancel(false);
+        }
+        pending.clear();
+        field = null;
+        requestedTarget = NONE;
+        tick = 0;
+    }
+
+    // Dijkstra from the target over 8-connected cells (10 straight, 14 diagonal).
+    // The target itself may be blocked for the entity; the search still spreads out of it.
+    private static Field build(NavGrid grid, int target) {
+        int cols = grid.getCols();
+        int n = cols * grid.getRows();
+        int[] dist = new int[n];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        byte[] field = new byte[n];
+        Arrays.fill(field, (byte) NONE);
+
+        LongHeap open = new LongHeap(n);
+        dist[target] = 0;
+        open.push(target);
+        while (!open.isEmpty()) {
+            long top = open.pop();
+            int cell = (int) top;
+            int d = (int) (top >>> 32);
+            if (d > dist[cell]) continue;
+
+            int cx = cell % cols, cy = cell / cols;
+            for (int k = 0; k < 8; k++) {
+                int next = grid.neighbour(cx, cy, k);
+                if (next < 0) continue;
+                int nd = d + NavGrid.STEP_COST[k];
+                if (nd < dist[next]) {
+                    dist[next] = nd;
+                    open.push(((long) nd << 32) | next);
+                }
+            }
+        }
+
+        for (int cell = 0; cell < n; cell++) {
+            if (dist[cell] == Integer.MAX_VALUE || cell == target) continue;
+            int cx = cell % cols, cy = cell / cols;
+            int best = dist[cell];
+            for (int k = 0; k < 8; k++) {
+                int next = grid.neighbour(cx, cy, k);
+                if (next >= 0 && dist[next] < best) {
+                    best = dist[next];
+                    field[cell] = (byte) k;
+                }
+            }
+        }
+        return new Field(grid, field);
+    }
+
+    // Direction index to step from this position, or NONE at the target, where it can't be
+    // reached, or outside the grid's window.
+    public int directionAt(int worldX, int worldY) {
+        Field f = field;
+        if (f == null) return NONE;
+        int cell = f.grid.cellAt(worldX, worldY);
+        return cell < 0 ? NONE : f.directions[cell];
+    }
+
+    public static double dirX(int direction) {
+        return DIR_X[direction];
+    }
+
+    public static double dirY(int direction) {
+        return DIR_Y[direction];
+    }
+
+    public boolean isCurrent() {
+        return field != null && pending.isEmpty();
+    }
+
+    public void shutdown() {
+        if (worker != null) {
+            worker.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,512 @@
+package maps;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+// HPA*: the NavGrid is cut into square clusters, each border gets entrance nodes,
+// and the distances between entrances inside a cluster are worked out once. Long
+// queries search that small graph and only run cell-level A* inside one cluster at a time.
+public class HierarchicalPathfinder {
+    private static final int MAX_SINGLE_ENTRANCE = 6;
+    private static final int CACHE_SIZE = 512;
+
+    private final NavGrid grid;
+    private final int clusterSize;
+    private final int cols, rows;
+    private final int clustersX, clustersY;
+
+    // abstract graph: node -> cell (-1 once freed), border crossings as (peer, border)
+    // pairs and intra-cluster edges as (to, cost) pairs per node. Border b is the east
+    // side of cluster b / 2 when b is even and its south side when b is odd.
+    private int nodeCount;
+    private int liveNodes;
+    private int[] nodeCell = new int[64];
+    private int[] nodeAtCell;
+    private IntList[] transitions = new IntList[64];
+    private int[][] edges = new int[64][];
+    private int[][] clusterNodes;
+    private final IntList freeNodes = new IntList();
+
+    // scratch shared by the cell-level searches, cleared by bumping the stamp
+    private final int[] cellCost;
+    private final int[] cellParent;
+    private final int[] cellStamp;
+    private int stamp;
+    private final LongHeap open;
+
+    private final LinkedHashMap<Long, CachedPath> cache = new LinkedHashMap<Long, CachedPath>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(java.util.Map.Entry<Long, CachedPath> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private int cacheHits, cacheMisses;
+
+    private static final class CachedPath {
+        final List<Point> points;
+        final int[] clusters;
+
+        CachedPath(List<Point> points, int[] clusters) {
+            this.points = points;
+            this.clusters = clusters;
+        }
+    }
+
+    public HierarchicalPathfinder(NavGrid grid, int clusterSize) {
+        this.grid = grid;
+        this.clusterSize = clusterSize;
+        this.cols = grid.getCols();
+        this.rows = grid.getRows();
+        this.clustersX = (cols + clusterSize - 1) / clusterSize;
+        this.clustersY = (rows + clusterSize - 1) / clusterSize;
+
+        int cells = cols * rows;
+        cellCost = new int[cells];
+        cellParent = new int[cells];
+        cellStamp = new int[cells];
+        open = new LongHeap(cells);
+        nodeAtCell = new int[cells];
+        Arrays.fill(nodeAtCell, -1);
+        clusterNodes = new int[clustersX * clustersY][];
+        Arrays.fill(clusterNodes, new int[0]);
+        boolean[] all = new boolean[clusterNodes.length];
+        Arrays.fill(all, true);
+        rebuild(all);
+    }
+
+    // Recomputes the entrances on every border of the dirty clusters, then the intra-cluster
+    // edges of every cluster on either side of those borders. With all clusters dirty this
+    // is the full build done at load; after a collision change only a few are.
+    private void rebuild(boolean[] dirty) {
+        boolean[] borders = new boolean[2 * dirty.length];
+        boolean[] touched = new boolean[dirty.length];
+        for (int k = 0; k < dirty.length; k++) {
+            if (!dirty[k]) continue;
+            int cx = k % clustersX, cy = k / clustersX;
+            touched[k] = true;
+            if (cx + 1 < clustersX) markBorder(borders, touched, 2 * k, k + 1);
+            if (cx > 0) markBorder(borders, touched, 2 * (k - 1), k - 1);
+            if (cy + 1 < clustersY) markBorder(borders, touched, 2 * k + 1, k + clustersX);
+            if (cy > 0) markBorder(borders, touched, 2 * (k - clustersX) + 1, k - clustersX);
+        }
+
+        // crossings on the dirty borders go, then the borders are scanned again
+        for (int k = 0; k < touched.length; k++) {
+            if (!touched[k]) continue;
+            for (int node : clusterNodes[k]) dropTransitions(node, borders);
+        }
+        IntList added = new IntList();
+        for (int border = 0; border < borders.length; border++) {
+            if (!borders[border]) continue;
+            int k = border / 2, cx = k % clustersX, cy = k / clustersX;
+            if (border % 2 == 0) {
+                scanBorder(added, border, (cx + 1) * clusterSize - 1, cy * clusterSize, 0, 1, 1, 0);
+            } else {
+                scanBorder(added, border, cx * clusterSize, (cy + 1) * clusterSize - 1, 1, 0, 0, 1);
+            }
+        }
+
+        // membership of the touched clusters: surviving nodes plus the new ones
+        IntList[] members = new IntList[touched.length];
+        for (int k = 0; k < touched.length; k++) {
+            if (!touched[k]) continue;
+            members[k] = new IntList();
+            for (int node : clusterNodes[k]) {
+                if (transitions[node].size > 0) members[k].add(node);
+                else freeNode(node);
+            }
+        }
+        for (int i = 0; i < added.size; i++) {
+            members[clusterOf(nodeCell[added.items[i]])].add(added.items[i]);
+        }
+
+        // intra-cluster edges: one bounded Dijkstra per entrance node
+        IntList out = new IntList();
+        for (int k = 0; k < touched.length; k++) {
+            if (!touched[k]) continue;
+            int[] nodes = members[k].toArray();
+            clusterNodes[k] = nodes;
+            for (int a : nodes) {
+                search(nodeCell[a], -1, k);
+                out.size = 0;
+                for (int b : nodes) {
+                    int cost = costTo(nodeCell[b]);
+                    if (b != a && cost >= 0) {
+                        out.add(b);
+                        out.add(cost);
+                    }
+                }
+                edges[a] = out.toArray();
+            }
+        }
+    }
+
+    private void markBorder(boolean[] borders, boolean[] touched, int border, int otherCluster) {
+        borders[border] = true;
+        touched[otherCluster] = true;
+    }
+
+    private void dropTransitions(int node, boolean[] borders) {
+        IntList list = transitions[node];
+        int kept = 0;
+        for (int i = 0; i < list.size; i += 2) {
+            if (!borders[list.items[i + 1]]) {
+                list.items[kept++] = list.items[i];
+                list.items[kept++] = list.items[i + 1];
+            }
+        }
+        list.size = kept;
+    }
+
+    // Walks one cluster border; (dx, dy) runs along it and (ox, oy) crosses it.
+    private void scanBorder(IntList added, int border, int startC, int startR, int dx, int dy, int ox, int oy) {
+        int runStart = -1;
+        for (int i = 0; i <= clusterSize; i++) {
+            int c = startC + dx * i, r = startR + dy * i;
+            boolean crossable = i < clusterSize && c < cols && r < rows && c + ox < cols && r + oy < rows
+                    && grid.isPassable(c, r) && grid.isPassable(c + ox, r + oy);
+            if (crossable && runStart < 0) {
+                runStart = i;
+            } else if (!crossable && runStart >= 0) {
+                int runEnd = i - 1;
+                if (runEnd - runStart + 1 < MAX_SINGLE_ENTRANCE) {
+                    addTransition(added, border, startC, startR, dx, dy, ox, oy, (runStart + runEnd) / 2);
+                } else {
+                    addTransition(added, border, startC, startR, dx, dy, ox, oy, runStart);
+                    addTransition(added, border, startC, startR, dx, dy, ox, oy, runEnd);
+                }
+                runStart = -1;
+            }
+        }
+    }
+
+    private void addTransition(IntList added, int border, int startC, int startR, int dx, int dy, int ox, int oy, int i) {
+        int c = startC + dx * i, r = startR + dy * i;
+        int a = nodeFor(added, r * cols + c);
+        int b = nodeFor(added, (r + oy) * cols + c + ox);
+        transitions[a].add(b);
+        transitions[a].add(border);
+        transitions[b].add(a);
+        transitions[b].add(border);
+    }
+
+    private int nodeFor(IntList added, int cell) {
+        if (nodeAtCell[cell] >= 0) return nodeAtCell[cell];
+        int node;
+        if (freeNodes.size > 0) {
+            node = freeNodes.items[--freeNodes.size];
+        } else {
+            if (nodeCount == nodeCell.length) {
+                nodeCell = Arrays.copyOf(nodeCell, nodeCount * 2);
+                transitions = Arrays.copyOf(transitions, nodeCount * 2);
+                edges = Arrays.copyOf(edges, nodeCount * 2);
+            }
+            node = nodeCount++;
+        }
+        nodeCell[node] = cell;
+        nodeAtCell[cell] = node;
+        transitions[node] = new IntList();
+        edges[node] = new int[0];
+        added.add(node);
+        liveNodes++;
+        return node;
+    }
+
+    private void freeNode(int node) {
+        nodeAtCell[nodeCell[node]] = -1;
+        nodeCell[node] = -1;
+        transitions[node] = null;
+        edges[node] = null;
+        freeNodes.add(node);
+        liveNodes--;
+    }
+
+    // Waypoints (cell origins in world pixels) from start to goal, or null if unreachable.
+    // The list is shared with the cache, so callers must not modify its points.
+    public synchronized List<Point> findPath(int startX, int startY, int goalX, int goalY) {
+        int start = grid.cellAt(startX, startY);
+        int goal = grid.cellAt(goalX, goalY);
+        Long key = ((long) start << 32) | goal;
+        CachedPath cached = cache.get(key);
+        if (cached != null) {
+            cacheHits++;
+            return cached.points;
+        }
+        cacheMisses++;
+
+        int[] cells = findCells(start, goal);
+        List<Point> points = null;
+        int[] clusters = null;
+        if (cells != null) {
+            List<Point> list = new ArrayList<>(cells.length);
+            int size = grid.getCellSize();
+            for (int cell : cells) list.add(new Point((cell % cols) * size, (cell / cols) * size));
+            points = Collections.unmodifiableList(list);
+            clusters = clustersOf(cells);
+        }
+        cache.put(key, new CachedPath(points, clusters));
+        return points;
+    }
+
+    private int[] findCells(int start, int goal) {
+        if (!grid.isPassable(start) || !grid.isPassable(goal)) return null;
+        int startCluster = clusterOf(start), goalCluster = clusterOf(goal);
+        if (start == goal) return new int[] { start };
+
+        if (startCluster == goalCluster && search(start, goal, startCluster)) {
+            return tracePath(start, goal);
+        }
+
+        // costs from the start to its cluster's entrances and from the goal cluster's entrances to the goal
+        int[] startNodes = clusterNodes[startCluster];
+        int[] startCost = new int[startNodes.length];
+        search(start, -1, startCluster);
+        for (int i = 0; i < startNodes.length; i++) startCost[i] = costTo(nodeCell[startNodes[i]]);
+
+        int[] goalNodes = clusterNodes[goalCluster];
+        int[] goalCost = new int[goalNodes.length];
+        search(goal, -1, goalCluster);
+        for (int i = 0; i < goalNodes.length; i++) goalCost[i] = costTo(nodeCell[goalNodes[i]]);
+
+        int[] route = searchAbstract(startNodes, startCost, goalNodes, goalCost, goal);
+        if (route == null) return null;
+
+        // refine each hop at cell level; crossing a border is a single step
+        IntList cells = new IntList();
+        cells.add(start);
+        int from = start;
+        for (int i = 0; i <= route.length; i++) {
+            int to = i < route.length ? nodeCell[route[i]] : goal;
+            if (to == from) continue;
+            if (clusterOf(to) != clusterOf(from)) {
+                cells.add(to);
+            } else {
+                if (!search(from, to, clusterOf(from))) return null;
+                int[] hop = tracePath(from, to);
+                for (int j = 1; j < hop.length; j++) cells.add(hop[j]);
+            }
+            from = to;
+        }
+        return cells.toArray();
+    }
+
+    // A* over the entrance graph between virtual start and goal nodes.
+    private int[] searchAbstract(int[] startNodes, int[] startCost, int[] goalNodes, int[] goalCost, int goal) {
+        int n = nodeCount;
+        int virtualGoal = n;
+        int[] cost = new int[n + 1];
+        int[] parent = new int[n + 1];
+        int[] toGoal = new int[n];
+        Arrays.fill(cost, Integer.MAX_VALUE);
+        Arrays.fill(parent, -1);
+        Arrays.fill(toGoal, -1);
+        for (int i = 0; i < goalNodes.length; i++) toGoal[goalNodes[i]] = goalCost[i];
+
+        LongHeap heap = new LongHeap(64);
+        for (int i = 0; i < startNodes.length; i++) {
+            if (startCost[i] < 0) continue;
+            int node = startNodes[i];
+            cost[node] = startCost[i];
+            heap.push(((long) (cost[node] + heuristic(nodeCell[node], goal)) << 32) | node);
+        }
+
+        while (!heap.isEmpty()) {
+            long top = heap.pop();
+            int node = (int) top;
+            if (node == virtualGoal) break;
+            if ((int) (top >>> 32) > cost[node] + heuristic(nodeCell[node], goal)) continue;
+
+            if (toGoal[node] >= 0 && cost[node] + toGoal[node] < cost[virtualGoal]) {
+                cost[virtualGoal] = cost[node] + toGoal[node];
+                parent[virtualGoal] = node;
+                heap.push(((long) cost[virtualGoal] << 32) | virtualGoal);
+            }
+            IntList crossings = transitions[node];
+            for (int i = 0; i < crossings.size; i += 2) {
+                relax(heap, cost, parent, node, crossings.items[i], NavGrid.STEP_COST[0], goal);
+            }
+            int[] out = edges[node];
+            for (int i = 0; i < out.length; i += 2) {
+                relax(heap, cost, parent, node, out[i], out[i + 1], goal);
+            }
+        }
+        if (parent[virtualGoal] < 0) return null;
+
+        IntList route = new IntList();
+        for (int node = parent[virtualGoal]; node >= 0; node = parent[node]) route.add(node);
+        int[] result = route.toArray();
+        for (int i = 0, j = result.length - 1; i < j; i++, j--) {
+            int t = result[i];
+            result[i] = result[j];
+            result[j] = t;
+        }
+        return result;
+    }
+
+    private void relax(LongHeap heap, int[] cost, int[] parent, int node, int next, int step, int goal) {
+        int nc = cost[node] + step;
+        if (nc < cost[next]) {
+            cost[next] = nc;
+            parent[next] = node;
+            heap.push(((long) (nc + heuristic(nodeCell[next], goal)) << 32) | next);
+        }
+    }
+
+    // Cell-level search kept inside one cluster, or the whole grid when cluster < 0.
+    // With a goal it is A* and stops there; with goal -1 it is a full Dijkstra.
+    private boolean search(int source, int goal, int cluster) {
+        int minC = 0, minR = 0, maxC = cols - 1, maxR = rows - 1;
+        if (cluster >= 0) {
+            minC = (cluster % clustersX) * clusterSize;
+            minR = (cluster / clustersX) * clusterSize;
+            maxC = Math.min(cols - 1, minC + clusterSize - 1);
+            maxR = Math.min(rows - 1, minR + clusterSize - 1);
+        }
+
+        if (++stamp == 0) {
+            Arrays.fill(cellStamp, 0);
+            stamp = 1;
+        }
+        open.clear();
+        cellStamp[source] = stamp;
+        cellCost[source] = 0;
+        cellParent[source] = -1;
+        open.push(((long) heuristic(source, goal) << 32) | source);
+
+        while (!open.isEmpty()) {
+            long top = open.pop();
+            int cell = (int) top;
+            if (cell == goal) return true;
+            int cx = cell % cols, cy = cell / cols;
+            if ((int) (top >>> 32) > cellCost[cell] + heuristic(cell, goal)) continue;
+
+            for (int k = 0; k < 8; k++) {
+                int next = grid.neighbour(cx, cy, k);
+                if (next < 0) continue;
+                int nx = next % cols, ny = next / cols;
+                if (nx < minC || nx > maxC || ny < minR || ny > maxR) continue;
+                int nc = cellCost[cell] + NavGrid.STEP_COST[k];
+                if (cellStamp[next] != stamp || nc < cellCost[next]) {
+                    cellStamp[next] = stamp;
+                    cellCost[next] = nc;
+                    cellParent[next] = cell;
+                    open.push(((long) (nc + heuristic(next, goal)) << 32) | next);
+                }
+            }
+        }
+        return goal < 0;
+    }
+
+    private int costTo(int cell) {
+        return cellStamp[cell] == stamp ? cellCost[cell] : -1;
+    }
+
+    private int[] tracePath(int source, int goal) {
+        IntList path = new IntList();
+        for (int cell = goal; cell != source; cell = cellParent[cell]) path.add(cell);
+        path.add(source);
+        int[] result = path.toArray();
+        for (int i = 0, j = result.length - 1; i < j; i++, j--) {
+            int t = result[i];
+            result[i] = result[j];
+            result[j] = t;
+        }
+        return result;
+    }
+
+    // Octile distance in the same 10/14 units as the step costs; zero without a goal.
+    private int heuristic(int cell, int goal) {
+        if (goal < 0) return 0;
+        int dx = Math.abs(cell % cols - goal % cols);
+        int dy = Math.abs(cell / cols - goal / cols);
+        return 10 * Math.max(dx, dy) + 4 * Math.min(dx, dy);
+    }
+
+    private int clusterOf(int cell) {
+        return (cell / cols / clusterSize) * clustersX + (cell % cols) / clusterSize;
+    }
+
+    private int[] clustersOf(int[] cells) {
+        boolean[] seen = new boolean[clustersX * clustersY];
+        IntList list = new IntList();
+        for (int cell : cells) {
+            int k = clusterOf(cell);
+            if (!seen[k]) {
+                seen[k] = true;
+                list.add(k);
+            }
+        }
+        return list.toArray();
+    }
+
+    // Plain grid A* over every cell, for comparison.
+    public synchronized int[] findPathFlat(int startX, int startY, int goalX, int goalY) {
+        int start = grid.cellAt(startX, startY);
+        int goal = grid.cellAt(goalX, goalY);
+        if (!grid.isPassable(start) || !grid.isPassable(goal)) return null;
+        return search(start, goal, -1) ? tracePath(start, goal) : null;
+    }
+
+    // Call after the collision mask changed inside the world rectangle. Only the clusters
+    // holding cells that changed, and the neighbours sharing their borders, are redone;
+    // cached paths through the changed clusters are dropped.
+    public synchronized void invalidate(int x, int y, int w, int h) {
+        Rectangle cells = grid.refresh(x, y, w, h);
+        if (cells == null) return;
+        int c1 = cells.x / clusterSize, r1 = cells.y / clusterSize;
+        int c2 = (cells.x + cells.width - 1) / clusterSize, r2 = (cells.y + cells.height - 1) / clusterSize;
+
+        boolean[] dirty = new boolean[clustersX * clustersY];
+        for (int cy = r1; cy <= r2; cy++) {
+            for (int cx = c1; cx <= c2; cx++) dirty[cy * clustersX + cx] = true;
+        }
+        rebuild(dirty);
+
+        Iterator<CachedPath> it = cache.values().iterator();
+        while (it.hasNext()) {
+            CachedPath path = it.next();
+            // a failed query might succeed now, wherever it was
+            boolean stale = path.clusters == null;
+            for (int i = 0; !stale && i < path.clusters.length; i++) {
+                stale = dirty[path.clusters[i]];
+            }
+            if (stale) it.remove();
+        }
+    }
+
+    public synchronized void clearCache() {
+        cache.clear();
+    }
+
+    public int getNodeCount() {
+        return liveNodes;
+    }
+
+    public int getCacheHits() {
+        return cacheHits;
+    }
+
+    public int getCacheMisses() {
+        return cacheMisses;
+    }
+
+    private static final class IntList {
+        private int[] items = new int[32];
+        private int size;
+
+        void add(int value) {
+            if (size == items.length) items = Arrays.copyOf(items, size * 2);
+            items[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(items, size);
+        }
+    }
+}
@@ -2,13 +2,23 @@ package maps;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 
 public class Map {
+    private static final int NAV_CELL_SIZE = 16;
+    private static final int NAV_CLUSTER_SIZE = 16;
+
     private BufferedImage mapImage;
+    private TiledImage tiledImage;
     private int mapWidth;
     private int mapHeight;
     private int tileSize;
     private Collision collision;
+    private ChunkedWorld world;
+    private final HashMap<String, HierarchicalPathfinder> pathfinders = new HashMap<>();
+    private final List<FlowField> flowFields = new ArrayList<>();
 
     public Map(BufferedImage mapImage, BufferedImage collisionMask, int tileSize) {
         this.mapImage = mapImage;
@@ -25,8 +35,44 @@ public class Map {
         }
     }
 
+    // A painted map held as deduplicated tiles instead of one full-size image.
+    public static Map fromTiles(TiledImage tiledImage, BufferedImage collisionMask, int tileSize) {
+        return new Map(tiledImage, collisionMask, tileSize);
+    }
+
+    private Map(TiledImage tiledImage, BufferedImage collisionMask, int tileSize) {
+        this.tiledImage = tiledImage;
+        this.tileSize = tileSize;
+        this.collision = new Collision(collisionMask);
+        this.mapWidth = tiledImage.getWidth();
+        this.mapHeight = tiledImage.getHeight();
+    }
+
+    // A world streamed from disk in chunks instead of held as whole images.
+    public Map(ChunkedWorld world, int tileSize) {
+        this.world = world;
+        this.tileSize = tileSize;
+        this.mapWidth = world.getWidth();
+        this.mapHeight = world.getHeight();
+    }
+
+    // Lets a streamed world load around the camera and ahead of where it is heading.
+    public void streamAround(int cameraX, int cameraY, int screenWidth, int screenHeight, double vx, double vy) {
+        if (world != null) {
+            world.streamAround(cameraX, cameraY, screenWidth, screenHeight, vx, vy);
+        }
+    }
+
     public void render(Graphics2D g2d, int cameraX, int cameraY, int screenWidth, int screenHeight) {
-        if (mapImage != null) {
+        if (world != null) {
+            cameraX = Math.max(0, Math.min(cameraX, mapWidth - screenWidth));
+            cameraY = Math.max(0, Math.min(cameraY, mapHeight - screenHeight));
+            world.render(g2d, cameraX, cameraY, screenWidth, screenHeight);
+        } else if (tiledImage != null) {
+            cameraX = Math.max(0, Math.min(cameraX, mapWidth - screenWidth));
+            cameraY = Math.max(0, Math.min(cameraY, mapHeight - screenHeight));
+            tiledImage.render(g2d, cameraX, cameraY, screenWidth, screenHeight);
+        } else if (mapImage != null) {
             cameraX = Math.max(0, Math.min(cameraX, mapWidth - screenWidth));
             cameraY = Math.max(0, Math.min(cameraY, mapHeight - screenHeight));
 
@@ -41,12 +87,50 @@ public class Map {
     }
 
     public boolean isWalkable(int x, int y, int width, int height) {
+        if (world != null) {
+            return !world.isBlocked(x, y, width, height);
+        }
         if (collision != null) {
             return !collision.isBlocked(x, y, width, height);
         }
         return true;
     }
 
+    // Built on first use per entity size; the cluster graph is then kept for the map's lifetime.
+    public synchronized HierarchicalPathfinder getPathfinder(int entityWidth, int entityHeight) {
+        return pathfinders.computeIfAbsent(entityWidth + "x" + entityHeight, key ->
+                new HierarchicalPathfinder(new NavGrid(this, NAV_CELL_SIZE, entityWidth, entityHeight), NAV_CLUSTER_SIZE));
+    }
+
+    // Flow fields over this map, so collision changes reach their grids too.
+    public synchronized void addFlowField(FlowField flowField) {
+        flowFields.add(flowField);
+    }
+
+    public synchronized void removeFlowField(FlowField flowField) {
+        flowFields.remove(flowField);
+    }
+
+    public synchronized void collisionChanged(int x, int y, int width, int height) {
+        for (HierarchicalPathfinder pathfinder : pathfinders.values()) {
+            pathfinder.invalidate(x, y, width, height);
+        }
+        for (FlowField flowField : flowFields) {
+            flowField.collisionChanged(x, y, width, height);
+        }
+    }
+
+    public boolean hasCollision() {
+        if (world != null) {
+            return world.hasCollision();
+        }
+        return collision != null && collision.hasMask();
+    }
+
+    public ChunkedWorld getWorld() {
+        return world;
+    }
+
     public int getTileSize() {
         return tileSize;
     }
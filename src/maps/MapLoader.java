@@ -1,37 +1,73 @@
 package maps;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+import assets.AssetLoader;
 
 public class MapLoader {
-    public static BufferedImage loadMapImage(String mapName) {
-        try {
-            String path = "/assets/tiles/" + mapName.toLowerCase() + ".png";
-            BufferedImage image = ImageIO.read(MapLoader.class.getResourceAsStream(path));
-            if (image == null) {
-                System.err.println("Failed to load map image: " + path);
+
+    // Loads the map as deduplicated tiles when TileImporter wrote a .tiles file for it,
+    // and as the whole image otherwise. Nothing is cut or hashed here.
+    public static Map loadMap(String mapName, int tileSize) {
+        BufferedImage mask = loadCollisionMask(mapName);
+        TiledImage tiled = loadTiles(mapName, tileSize);
+        if (tiled != null) {
+            // in case something decoded the whole image anyway
+            AssetLoader.evict(mapPath(mapName));
+            return Map.fromTiles(tiled, mask, tileSize);
+        }
+        return new Map(loadMapImage(mapName), mask, tileSize);
+    }
+
+    // Drops map images that load from a .tiles file instead, so a preload doesn't decode
+    // and keep the whole picture.
+    public static void removeTiledMaps(List<String> imagePaths) {
+        imagePaths.removeIf(path -> path.startsWith("/assets/tiles/") && path.endsWith(".png")
+                && MapLoader.class.getResource(path.substring(0, path.length() - 4) + ".tiles") != null);
+    }
+
+    private static TiledImage loadTiles(String mapName, int tileSize) {
+        String path = "/assets/tiles/" + mapName.toLowerCase() + ".tiles";
+        InputStream in = MapLoader.class.getResourceAsStream(path);
+        if (in == null) {
+            return null;
+        }
+        try (ReadableByteChannel channel = Channels.newChannel(in)) {
+            TiledImage tiled = TiledImage.read(channel);
+            if (tiled.getTileSize() != tileSize) {
+                System.err.println(path + " has " + tiled.getTileSize() + "px tiles, not " + tileSize + "; loading the whole image");
+                return null;
             }
-            return image;
+            return tiled;
         } catch (IOException e) {
-            System.err.println("Error loading map image " + mapName + ": " + e.getMessage());
-            e.printStackTrace();
+            System.err.println("Failed to load " + path + ": " + e.getMessage());
             return null;
         }
     }
 
+    private static String mapPath(String mapName) {
+        return "/assets/tiles/" + mapName.toLowerCase() + ".png";
+    }
+
+    public static BufferedImage loadMapImage(String mapName) {
+        String path = mapPath(mapName);
+        BufferedImage image = AssetLoader.image(path);
+        if (image == null) {
+            System.err.println("Failed to load map image: " + path);
+        }
+        return image;
+    }
+
     public static BufferedImage loadCollisionMask(String mapName) {
-        try {
-            String path = "/assets/tiles/" + mapName.toLowerCase() + "_collision.png";
-            BufferedImage mask = ImageIO.read(MapLoader.class.getResourceAsStream(path));
-            if (mask == null) {
-                System.err.println("Failed to load collision mask: " + path);
-            }
-            return mask;
-        } catch (IOException e) {
-            System.err.println("Error loading collision mask " + mapName + ": " + e.getMessage());
-            e.printStackTrace();
-            return null;
+        String path = "/assets/tiles/" + mapName.toLowerCase() + "_collision.png";
+        BufferedImage mask = AssetLoader.image(path);
+        if (mask == null) {
+            System.err.println("Failed to load collision mask: " + path);
         }
+        return mask;
     }
 }
@@ -0,0 +1,157 @@
+package maps;
+
+import java.awt.Rectangle;
+
+// Coarse walkability of the collision mask for one entity size. A cell is passable
+// when the entity box fits with its top-left corner on the cell origin.
+public class NavGrid {
+    // 8-connected steps: four straight, then four diagonal
+    static final int[] STEP_X = { 1, -1, 0, 0, 1, 1, -1, -1 };
+    static final int[] STEP_Y = { 0, 0, 1, -1, 1, -1, 1, -1 };
+    static final int[] STEP_COST = { 10, 10, 10, 10, 14, 14, 14, 14 };
+
+    private final Map map;
+    private final int cellSize;
+    private final int mapCols;
+    private final int mapRows;
+    private final int cols;
+    private final int rows;
+    private final int entityWidth;
+    private final int entityHeight;
+    // the grid may cover only a window of the map; this is its top-left cell on the map
+    private int originCol;
+    private int originRow;
+    private boolean[] passable;
+
+    public NavGrid(Map map, int cellSize, int entityWidth, int entityHeight) {
+        this(map, cellSize, entityWidth, entityHeight, Integer.MAX_VALUE);
+    }
+
+    // A grid over at most windowSize x windowSize pixels of the map, starting at the top
+    // left; moveWindow keeps it around a point. Streamed worlds use this so navigation
+    // never has to read, or hold, the whole world.
+    public NavGrid(Map map, int cellSize, int entityWidth, int entityHeight, int windowSize) {
+        this.map = map;
+        this.cellSize = cellSize;
+        this.mapCols = Math.max(1, (map.getMapWidth() + cellSize - 1) / cellSize);
+        this.mapRows = Math.max(1, (map.getMapHeight() + cellSize - 1) / cellSize);
+        int windowCells = (int) Math.min(Integer.MAX_VALUE, ((long) windowSize + cellSize - 1) / cellSize);
+        this.cols = Math.min(mapCols, windowCells);
+        this.rows = Math.min(mapRows, windowCells);
+        this.entityWidth = entityWidth;
+        this.entityHeight = entityHeight;
+        this.passable = new boolean[cols * rows];
+        refresh(0, 0, cols * cellSize, rows * cellSize);
+    }
+
+    // Frozen copy for a background reader; the copy's window never moves.
+    private NavGrid(NavGrid from) {
+        this.map = from.map;
+        this.cellSize = from.cellSize;
+        this.mapCols = from.mapCols;
+        this.mapRows = from.mapRows;
+        this.cols = from.cols;
+        this.rows = from.rows;
+        this.entityWidth = from.entityWidth;
+        this.entityHeight = from.entityHeight;
+        this.originCol = from.originCol;
+        this.originRow = from.originRow;
+        this.passable = from.passable.clone();
+    }
+
+    public NavGrid snapshot() {
+        return new NavGrid(this);
+    }
+
+    // Re-reads the mask for every cell in the window whose entity box could overlap the
+    // world rectangle. Returns those cells (x = col, y = row), or null if there were none.
+    public Rectangle refresh(int x, int y, int w, int h) {
+        int c1 = Math.max(0, Math.floorDiv(x - entityWidth + 1, cellSize) - originCol);
+        int r1 = Math.max(0, Math.floorDiv(y - entityHeight + 1, cellSize) - originRow);
+        int c2 = Math.min(cols - 1, Math.floorDiv(x + w - 1, cellSize) - originCol);
+        int r2 = Math.min(rows - 1, Math.floorDiv(y + h - 1, cellSize) - originRow);
+        if (c1 > c2 || r1 > r2) {
+            return null;
+        }
+        for (int r = r1; r <= r2; r++) {
+            for (int c = c1; c <= c2; c++) {
+                passable[r * cols + c] = walkable(c, r);
+            }
+        }
+        return new Rectangle(c1, r1, c2 - c1 + 1, r2 - r1 + 1);
+    }
+
+    private boolean walkable(int col, int row) {
+        return map.isWalkable((originCol + col) * cellSize, (originRow + row) * cellSize, entityWidth, entityHeight);
+    }
+
+    // Recentres the window on a world point once the point gets within a quarter window of
+    // an edge, keeping the cells it already had and reading only the ones that scroll in.
+    // Returns whether the window moved, which changes every cell index.
+    public boolean moveWindow(int worldX, int worldY) {
+        int col = Math.floorDiv(worldX, cellSize) - originCol;
+        int row = Math.floorDiv(worldY, cellSize) - originRow;
+        if (col >= cols / 4 && col < cols - cols / 4 && row >= rows / 4 && row < rows - rows / 4) {
+            return false;
+        }
+        int newCol = Math.max(0, Math.min(mapCols - cols, originCol + col - cols / 2));
+        int newRow = Math.max(0, Math.min(mapRows - rows, originRow + row - rows / 2));
+        int dx = newCol - originCol;
+        int dy = newRow - originRow;
+        if (dx == 0 && dy == 0) {
+            return false;
+        }
+
+        boolean[] old = passable;
+        boolean[] next = new boolean[old.length];
+        originCol = newCol;
+        originRow = newRow;
+        for (int r = 0; r < rows; r++) {
+            int oldRow = r + dy;
+            for (int c = 0; c < cols; c++) {
+                int oldCol = c + dx;
+                boolean kept = oldRow >= 0 && oldRow < rows && oldCol >= 0 && oldCol < cols;
+                next[r * cols + c] = kept ? old[oldRow * cols + oldCol] : walkable(c, r);
+            }
+        }
+        passable = next;
+        return true;
+    }
+
+    public boolean isPassable(int cell) {
+        return passable[cell];
+    }
+
+    public boolean isPassable(int col, int row) {
+        return passable[row * cols + col];
+    }
+
+    // Cell reached by step k from (col, row), or -1. Diagonals may not cut a blocked corner.
+    int neighbour(int col, int row, int k) {
+        int nx = col + STEP_X[k], ny = row + STEP_Y[k];
+        if (nx < 0 || ny < 0 || nx >= cols || ny >= rows) return -1;
+        if (!passable[ny * cols + nx]) return -1;
+        if (k >= 4 && (!passable[row * cols + nx] || !passable[ny * cols + col])) return -1;
+        return ny * cols + nx;
+    }
+
+    // Cell under a world position clamped to the map, or -1 when that is outside the window.
+    public int cellAt(int worldX, int worldY) {
+        int col = Math.max(0, Math.min(mapCols - 1, Math.floorDiv(worldX, cellSize))) - originCol;
+        int row = Math.max(0, Math.min(mapRows - 1, Math.floorDiv(worldY, cellSize))) - originRow;
+        if (col < 0 || row < 0 || col >= cols || row >= rows) return -1;
+        return row * cols + col;
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+}
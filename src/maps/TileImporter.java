@@ -0,0 +1,62 @@
+package maps;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import javax.imageio.ImageIO;
+
+// Build step: cuts painted maps into deduplicated tiles once, so the game never has to.
+//   java maps.TileImporter src/assets/tiles/forest.png [more.png ...]
+// Each map that repeats enough is written next to itself with a .tiles extension, which
+// MapLoader loads instead of the PNG. Maps that don't get no .tiles file (a stale one is
+// removed) and load whole. Rerun it whenever a map changes.
+public class TileImporter {
+    public static final int TILE_SIZE = 48;
+    // keep the deduplicated tiles only if they take at most this share of the full image
+    private static final double MAX_TILED_RATIO = 0.5;
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: java maps.TileImporter <map.png> [map.png ...]");
+            System.exit(1);
+        }
+        int failed = 0;
+        for (String arg : args) {
+            Path in = Paths.get(arg);
+            String name = in.getFileName().toString();
+            Path out = in.resolveSibling(name.replaceFirst("\\.png$", "") + ".tiles");
+            try {
+                BufferedImage image = ImageIO.read(in.toFile());
+                if (image == null) {
+                    throw new IOException("not a readable image");
+                }
+                long start = System.nanoTime();
+                long full = TiledImage.imageBytes(image);
+                TiledImage tiled = TiledImage.fromImage(image, TILE_SIZE, (long) (full * MAX_TILED_RATIO));
+                long ms = (System.nanoTime() - start) / 1_000_000L;
+                if (tiled == null) {
+                    boolean removed = Files.deleteIfExists(out);
+                    System.out.println(in + ": too few repeated tiles, loads whole (" + ms + " ms"
+                            + (removed ? ", removed stale " + out.getFileName() : "") + ")");
+                    continue;
+                }
+                try (FileChannel channel = FileChannel.open(out, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    tiled.write(channel);
+                }
+                System.out.printf("%s -> %s: %d of %d tiles unique, %.1f MB as tiles vs %.1f MB whole (%d ms)%n",
+                        in, out, tiled.getUniqueTiles(), tiled.getTileCount(), tiled.getBytes() / 1e6, full / 1e6, ms);
+            } catch (IOException e) {
+                System.err.println("Skipping " + in + ": " + e.getMessage());
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+}
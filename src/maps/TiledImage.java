@@ -0,0 +1,262 @@
+package maps;
+
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+// A painted map cut into tiles, with identical tiles stored once in a tileset and the map
+// kept as a grid of tileset indices. Tiles are compared pixel for pixel after hashing, so
+// drawing it gives exactly the same output as drawing the source image.
+// TileImporter does the cutting at build time and writes the result (.tiles), big-endian:
+//   int magic, short version, int width, int height, int tileSize, byte opaque, int unique,
+//   then cols*rows tileset indices, then per unique tile: short w, short h, w*h ARGB ints
+public class TiledImage {
+    static final int MAGIC = 0x42515453; // "BQTS"
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 23;
+    private static final int CHUNK_BYTES = 64 * 1024;
+
+    private final int width;
+    private final int height;
+    private final int tileSize;
+    private final int cols;
+    private final int rows;
+    private final BufferedImage[] tileset;
+    private final int[] grid;
+
+    private TiledImage(int width, int height, int tileSize, BufferedImage[] tileset, int[] grid) {
+        this.width = width;
+        this.height = height;
+        this.tileSize = tileSize;
+        this.cols = (width + tileSize - 1) / tileSize;
+        this.rows = (height + tileSize - 1) / tileSize;
+        this.tileset = tileset;
+        this.grid = grid;
+    }
+
+    public static TiledImage fromImage(BufferedImage image, int tileSize) {
+        return fromImage(image, tileSize, Long.MAX_VALUE);
+    }
+
+    // Gives up and returns null as soon as the unique tiles would need more than maxBytes.
+    public static TiledImage fromImage(BufferedImage image, int tileSize, long maxBytes) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int cols = (width + tileSize - 1) / tileSize;
+        int rows = (height + tileSize - 1) / tileSize;
+        boolean opaque = image.getColorModel().getTransparency() == Transparency.OPAQUE;
+
+        int[] grid = new int[cols * rows];
+        List<int[]> unique = new ArrayList<>();
+        List<Integer> uniqueWidths = new ArrayList<>();
+        // hash -> first tileset index with that hash; later ones chain through next
+        HashMap<Long, Integer> firstWithHash = new HashMap<>();
+        List<Integer> next = new ArrayList<>();
+
+        long bytes = 4L * grid.length;
+        int[] strip = new int[width * tileSize];
+        for (int r = 0; r < rows; r++) {
+            int y = r * tileSize;
+            int h = Math.min(tileSize, height - y);
+            image.getRGB(0, y, width, h, strip, 0, width);
+            for (int c = 0; c < cols; c++) {
+                int x = c * tileSize;
+                int w = Math.min(tileSize, width - x);
+                int[] pixels = new int[w * h];
+                for (int ly = 0; ly < h; ly++) {
+                    System.arraycopy(strip, ly * width + x, pixels, ly * w, w);
+                }
+                long hash = hash(pixels, w);
+
+                Integer head = firstWithHash.get(hash);
+                int found = -1;
+                for (int id = head != null ? head : -1; id >= 0; id = next.get(id)) {
+                    if (uniqueWidths.get(id) == w && Arrays.equals(unique.get(id), pixels)) {
+                        found = id;
+                        break;
+                    }
+                }
+                if (found < 0) {
+                    bytes += 4L * pixels.length;
+                    if (bytes > maxBytes) {
+                        return null;
+                    }
+                    found = unique.size();
+                    unique.add(pixels);
+                    uniqueWidths.add(w);
+                    next.add(head != null ? head : -1);
+                    firstWithHash.put(hash, found);
+                }
+                grid[r * cols + c] = found;
+            }
+        }
+
+        BufferedImage[] tileset = new BufferedImage[unique.size()];
+        int type = opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        for (int id = 0; id < tileset.length; id++) {
+            int w = uniqueWidths.get(id);
+            int[] pixels = unique.get(id);
+            tileset[id] = new BufferedImage(w, pixels.length / w, type);
+            tileset[id].getRaster().setDataElements(0, 0, w, pixels.length / w, pixels);
+        }
+        return new TiledImage(width, height, tileSize, tileset, grid);
+    }
+
+    // Streams the file through one small buffer, like MapFile.
+    public static TiledImage read(ReadableByteChannel in) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(CHUNK_BYTES);
+        buf.limit(HEADER_BYTES);
+        fill(in, buf);
+        buf.flip();
+        if (buf.getInt() != MAGIC) {
+            throw new IOException("not a tiled map");
+        }
+        short version = buf.getShort();
+        if (version != VERSION) {
+            throw new IOException("unsupported tiled map version " + version);
+        }
+        int width = buf.getInt();
+        int height = buf.getInt();
+        int tileSize = buf.getInt();
+        boolean opaque = buf.get() != 0;
+        int unique = buf.getInt();
+        if (width <= 0 || height <= 0 || tileSize <= 0 || unique <= 0) {
+            throw new IOException("bad tiled map header " + width + "x" + height + ", " + tileSize + "px tiles");
+        }
+        int cols = (width + tileSize - 1) / tileSize;
+        int rows = (height + tileSize - 1) / tileSize;
+
+        int[] grid = new int[cols * rows];
+        readInts(in, buf, grid);
+        for (int id : grid) {
+            if (id < 0 || id >= unique) throw new IOException("tile index " + id + " out of range");
+        }
+
+        BufferedImage[] tileset = new BufferedImage[unique];
+        int type = opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        for (int id = 0; id < unique; id++) {
+            buf.clear();
+            buf.limit(4);
+            fill(in, buf);
+            buf.flip();
+            int w = buf.getShort(), h = buf.getShort();
+            if (w <= 0 || h <= 0 || w > tileSize || h > tileSize) {
+                throw new IOException("bad tile size " + w + "x" + h);
+            }
+            int[] pixels = new int[w * h];
+            readInts(in, buf, pixels);
+            tileset[id] = new BufferedImage(w, h, type);
+            tileset[id].getRaster().setDataElements(0, 0, w, h, pixels);
+        }
+        return new TiledImage(width, height, tileSize, tileset, grid);
+    }
+
+    public void write(WritableByteChannel out) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(CHUNK_BYTES);
+        buf.putInt(MAGIC).putShort(VERSION).putInt(width).putInt(height).putInt(tileSize)
+           .put((byte) (tileset[0].getType() == BufferedImage.TYPE_INT_RGB ? 1 : 0)).putInt(tileset.length);
+        writeInts(out, buf, grid);
+        for (BufferedImage tile : tileset) {
+            int w = tile.getWidth(), h = tile.getHeight();
+            if (buf.remaining() < 4) drain(out, buf);
+            buf.putShort((short) w).putShort((short) h);
+            writeInts(out, buf, (int[]) tile.getRaster().getDataElements(0, 0, w, h, null));
+        }
+        drain(out, buf);
+    }
+
+    private static void readInts(ReadableByteChannel in, ByteBuffer buf, int[] into) throws IOException {
+        int i = 0;
+        while (i < into.length) {
+            buf.clear();
+            buf.limit((int) Math.min(buf.capacity(), 4L * (into.length - i)));
+            fill(in, buf);
+            buf.flip();
+            while (buf.hasRemaining()) into[i++] = buf.getInt();
+        }
+    }
+
+    private static void writeInts(WritableByteChannel out, ByteBuffer buf, int[] values) throws IOException {
+        for (int v : values) {
+            if (buf.remaining() < 4) drain(out, buf);
+            buf.putInt(v);
+        }
+    }
+
+    private static void drain(WritableByteChannel out, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) out.write(buf);
+        buf.clear();
+    }
+
+    private static void fill(ReadableByteChannel in, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            if (in.read(buf) < 0) throw new IOException("tiled map is truncated");
+        }
+    }
+
+    // 64-bit FNV-1a over the pixels and the tile width.
+    private static long hash(int[] pixels, int width) {
+        long h = 0xcbf29ce484222325L ^ width;
+        for (int p : pixels) {
+            h = (h ^ p) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // Same contract as drawing the source image's camera rectangle at (0, 0).
+    public void render(Graphics2D g2d, int cameraX, int cameraY, int screenWidth, int screenHeight) {
+        int startCol = Math.max(0, cameraX / tileSize);
+        int startRow = Math.max(0, cameraY / tileSize);
+        int endCol = Math.min(cols - 1, (cameraX + screenWidth - 1) / tileSize);
+        int endRow = Math.min(rows - 1, (cameraY + screenHeight - 1) / tileSize);
+        for (int r = startRow; r <= endRow; r++) {
+            for (int c = startCol; c <= endCol; c++) {
+                g2d.drawImage(tileset[grid[r * cols + c]], c * tileSize - cameraX, r * tileSize - cameraY, null);
+            }
+        }
+    }
+
+    // Approximate heap held by pixels and the index grid.
+    public long getBytes() {
+        long bytes = 4L * grid.length;
+        for (BufferedImage tile : tileset) {
+            bytes += imageBytes(tile);
+        }
+        return bytes;
+    }
+
+    public static long imageBytes(BufferedImage image) {
+        DataBuffer data = image.getRaster().getDataBuffer();
+        return (long) data.getSize() * data.getNumBanks() * DataBuffer.getDataTypeSize(data.getDataType()) / 8;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public int getUniqueTiles() {
+        return tileset.length;
+    }
+
+    public int getTileCount() {
+        return grid.length;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,107 @@
+package maps;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Build step: cuts a map and its collision mask into the chunk file ChunkedWorld streams.
+//   java maps.WorldPacker <map name> <out.world> [chunk size, multiple of 64, default 256]
+// Chunks are produced one at a time, so a ChunkSource can generate worlds that would not
+// fit in memory as a single image.
+public class WorldPacker {
+    public static final int DEFAULT_CHUNK_SIZE = 256;
+
+    public interface ChunkSource {
+        // Fills the w x h pixels at (x, y), row stride chunkSize, and sets blocked bits the same way.
+        void fill(int x, int y, int w, int h, int[] argb, long[] blocked);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java maps.WorldPacker <map name> <out.world> [chunk size]");
+            System.exit(1);
+        }
+        int chunkSize = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_CHUNK_SIZE;
+        BufferedImage image = MapLoader.loadMapImage(args[0]);
+        if (image == null) {
+            System.exit(1);
+        }
+        BufferedImage mask = MapLoader.loadCollisionMask(args[0]);
+
+        long start = System.nanoTime();
+        Path out = Paths.get(args[1]);
+        write(out, image.getWidth(), image.getHeight(), chunkSize, mask != null, fromImages(image, mask, chunkSize));
+        System.out.printf("Wrote %s (%dx%d, %dpx chunks%s) in %.0f ms%n", out, image.getWidth(), image.getHeight(),
+                chunkSize, mask != null ? ", with collision" : "", (System.nanoTime() - start) / 1e6);
+    }
+
+    public static ChunkSource fromImages(BufferedImage image, BufferedImage mask, int chunkSize) {
+        return (x, y, w, h, argb, blocked) -> {
+            image.getRGB(x, y, w, h, argb, 0, chunkSize);
+            if (mask == null) {
+                return;
+            }
+            int[] row = new int[w];
+            for (int ly = 0; ly < h && y + ly < mask.getHeight(); ly++) {
+                int mw = Math.min(w, mask.getWidth() - x);
+                if (mw <= 0) break;
+                mask.getRGB(x, y + ly, mw, 1, row, 0, mw);
+                for (int lx = 0; lx < mw; lx++) {
+                    if (Collision.isBlockedColor(row[lx])) {
+                        int i = ly * chunkSize + lx;
+                        blocked[i >>> 6] |= 1L << i;
+                    }
+                }
+            }
+        };
+    }
+
+    public static void write(Path out, int width, int height, int chunkSize, boolean collision,
+                             ChunkSource source) throws IOException {
+        if (chunkSize <= 0 || chunkSize % 64 != 0) {
+            throw new IllegalArgumentException("chunk size must be a positive multiple of 64");
+        }
+        int chunksX = (width + chunkSize - 1) / chunkSize;
+        int chunksY = (height + chunkSize - 1) / chunkSize;
+        int pixels = chunkSize * chunkSize;
+        int[] argb = new int[pixels];
+        long[] blocked = new long[pixels / 64];
+        ByteBuffer record = ByteBuffer.allocate((int) ChunkedWorld.recordBytes(chunkSize));
+
+        try (FileChannel channel = FileChannel.open(out, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(ChunkedWorld.HEADER_BYTES);
+            header.putInt(ChunkedWorld.MAGIC).putInt(ChunkedWorld.VERSION).putInt(width).putInt(height)
+                  .putInt(chunkSize).putInt(collision ? ChunkedWorld.FLAG_COLLISION : 0).flip();
+            writeFully(channel, header);
+
+            for (int cy = 0; cy < chunksY; cy++) {
+                for (int cx = 0; cx < chunksX; cx++) {
+                    int x = cx * chunkSize;
+                    int y = cy * chunkSize;
+                    Arrays.fill(argb, 0);
+                    Arrays.fill(blocked, 0L);
+                    source.fill(x, y, Math.min(chunkSize, width - x), Math.min(chunkSize, height - y), argb, blocked);
+
+                    record.clear();
+                    record.asIntBuffer().put(argb);
+                    record.position(pixels * 4);
+                    record.asLongBuffer().put(blocked);
+                    record.position(0);
+                    writeFully(channel, record);
+                }
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package tile;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Build step: converts text maps to the binary format TileManager loads first.
+//   java tile.MapConverter <classes>/maps/world01.txt [more.txt ...]
+// Each input is written next to itself with a .bqm extension. Run it on the build output
+// after resources are copied; the .bqm files are not committed, and TileManager reads the
+// .txt instead of any .bqm that is older than it.
+public class MapConverter {
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: java tile.MapConverter <map.txt> [map.txt ...]");
+            System.exit(1);
+        }
+        int failed = 0;
+        for (String arg : args) {
+            Path in = Paths.get(arg);
+            String name = in.getFileName().toString();
+            Path out = in.resolveSibling(name.replaceFirst("\\.txt$", "") + ".bqm");
+            try {
+                MapFile map;
+                try (Reader reader = Files.newBufferedReader(in, StandardCharsets.UTF_8)) {
+                    map = MapFile.readText(reader);
+                }
+                try (FileChannel channel = FileChannel.open(out, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    map.write(channel);
+                }
+                System.out.println(in + " -> " + out + " (" + map.cols + "x" + map.rows + ", "
+                        + Files.size(in) + " -> " + Files.size(out) + " bytes)");
+            } catch (IOException | NumberFormatException e) {
+                System.err.println("Skipping " + in + ": " + e.getMessage());
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package tile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+// A tile map as one flat row-major array of tile ids.
+// Binary layout (.bqm), big-endian:
+//   int magic, short version, int cols, int rows, byte idBytes (1 or 2), then cols*rows ids
+public final class MapFile {
+    static final int MAGIC = 0x42514D50; // "BQMP"
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 15;
+    private static final int CHUNK_BYTES = 64 * 1024;
+
+    public final int cols;
+    public final int rows;
+    public final int[] tiles;
+
+    public MapFile(int cols, int rows, int[] tiles) {
+        if (tiles.length != cols * rows) {
+            throw new IllegalArgumentException("expected " + cols * rows + " tiles, got " + tiles.length);
+        }
+        this.cols = cols;
+        this.rows = rows;
+        this.tiles = tiles;
+    }
+
+    public int get(int col, int row) {
+        return tiles[row * cols + col];
+    }
+
+    // Streams the ids through one small buffer, so the only large allocation is the result.
+    public static MapFile read(ReadableByteChannel in) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        fill(in, header);
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new IOException("not a binary map");
+        }
+        short version = header.getShort();
+        if (version != VERSION) {
+            throw new IOException("unsupported map version " + version);
+        }
+        int cols = header.getInt();
+        int rows = header.getInt();
+        int idBytes = header.get();
+        if (cols <= 0 || rows <= 0 || (long) cols * rows > Integer.MAX_VALUE || (idBytes != 1 && idBytes != 2)) {
+            throw new IOException("bad map header " + cols + "x" + rows + ", " + idBytes + " byte ids");
+        }
+
+        int[] tiles = new int[cols * rows];
+        ByteBuffer chunk = ByteBuffer.allocate((int) Math.min(CHUNK_BYTES, (long) tiles.length * idBytes));
+        int i = 0;
+        while (i < tiles.length) {
+            chunk.clear();
+            chunk.limit((int) Math.min(chunk.capacity(), (long) (tiles.length - i) * idBytes));
+            fill(in, chunk);
+            chunk.flip();
+            if (idBytes == 1) {
+                while (chunk.hasRemaining()) tiles[i++] = chunk.get() & 0xFF;
+            } else {
+                while (chunk.hasRemaining()) tiles[i++] = chunk.getShort() & 0xFFFF;
+            }
+        }
+        return new MapFile(cols, rows, tiles);
+    }
+
+    public void write(WritableByteChannel out) throws IOException {
+        int max = 0;
+        for (int id : tiles) {
+            if (id < 0 || id > 0xFFFF) {
+                throw new IOException("tile id " + id + " does not fit in 16 bits");
+            }
+            max = Math.max(max, id);
+        }
+        int idBytes = max <= 0xFF ? 1 : 2;
+
+        ByteBuffer buf = ByteBuffer.allocate(CHUNK_BYTES);
+        buf.putInt(MAGIC).putShort(VERSION).putInt(cols).putInt(rows).put((byte) idBytes);
+        for (int id : tiles) {
+            if (buf.remaining() < idBytes) {
+                drain(out, buf);
+            }
+            if (idBytes == 1) buf.put((byte) id);
+            else buf.putShort((short) id);
+        }
+        drain(out, buf);
+    }
+
+    // The old comma-separated format; the width comes from the first row.
+    public static MapFile readText(Reader reader) throws IOException {
+        BufferedReader br = new BufferedReader(reader);
+        List<int[]> lines = new ArrayList<>();
+        String line;
+        while ((line = br.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] tileNumbers = line.split(",");
+            int[] row = new int[tileNumbers.length];
+            for (int col = 0; col < row.length; col++) {
+                row[col] = Integer.parseInt(tileNumbers[col].trim());
+            }
+            lines.add(row);
+        }
+        if (lines.isEmpty()) {
+            throw new IOException("map has no rows");
+        }
+
+        int cols = lines.get(0).length;
+        int[] tiles = new int[cols * lines.size()];
+        for (int r = 0; r < lines.size(); r++) {
+            int[] row = lines.get(r);
+            if (row.length != cols) {
+                throw new IOException("row " + r + " has " + row.length + " tiles, expected " + cols);
+            }
+            System.arraycopy(row, 0, tiles, r * cols, cols);
+        }
+        return new MapFile(cols, lines.size(), tiles);
+    }
+
+    private static void fill(ReadableByteChannel in, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            if (in.read(buf) < 0) {
+                throw new IOException("map file is truncated");
+            }
+        }
+    }
+
+    private static void drain(WritableByteChannel out, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+        buf.clear();
+    }
+}
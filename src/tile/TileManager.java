@@ -1,17 +1,42 @@
 package tile;
 
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import javax.imageio.ImageIO;
 
 public class TileManager {
     private Tile[] tile;
     private int tileSize = 48; // Default tile size
-    private int mapWidth = 37; // Expanded map width (1776 pixels)
-    private int mapHeight = 32; // Expanded map height (1536 pixels)
-    private int[][] tileMap; // 2D array to store tile IDs
+    private int mapWidth = 37; // Fallback map width; loaded maps bring their own size
+    private int mapHeight = 32; // Fallback map height
+    private int[] tileMap; // Tile IDs, row-major: tileMap[row * mapWidth + col]
+
+    // Static tiles are baked into 16x16-tile images so a frame is a handful of blits.
+    private static final int CHUNK_TILES = 16;
+    private static final int MAX_CACHED_CHUNKS = 16; // ~2.4 MB each at 48px tiles
+    private boolean chunkCache = true;
+    private final LinkedHashMap<Integer, BufferedImage> chunks =
+            new LinkedHashMap<Integer, BufferedImage>(32, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, BufferedImage> eldest) {
+                    return size() > MAX_CACHED_CHUNKS;
+                }
+            };
 
     public TileManager(Object gameLoop) {
         tile = new Tile[50]; // Support up to 50 tile types
@@ -103,31 +128,14 @@ public class TileManager {
     }
 
     public void createExampleMap() {
-        // Initialize the 5x5 tile map
-        tileMap = new int[mapHeight][mapWidth];
-
-        // Load map from text file
         loadMapFromFile("world01");
     }
 
+    // Prefers the binary .bqm made by MapConverter and falls back to the .txt map, or to
+    // the .txt when it was edited after the .bqm was made.
     public void loadMapFromFile(String mapName) {
         try {
-            BufferedReader br = new BufferedReader(new InputStreamReader(
-                getClass().getResourceAsStream("/maps/" + mapName + ".txt")));
-
-            String line;
-            int row = 0;
-
-            while ((line = br.readLine()) != null && row < mapHeight) {
-                // Split by comma and parse tile IDs
-                String[] tileNumbers = line.split(",");
-                for (int col = 0; col < tileNumbers.length && col < mapWidth; col++) {
-                    tileMap[row][col] = Integer.parseInt(tileNumbers[col].trim());
-                }
-                row++;
-            }
-
-            br.close();
+            setMap(readMap(mapName));
             System.out.println("Loaded map: " + mapName + " (" + mapWidth + "x" + mapHeight + ")");
 
         } catch (Exception e) {
@@ -138,21 +146,142 @@ public class TileManager {
         }
     }
 
+    public void setMap(MapFile map) {
+        tileMap = map.tiles;
+        mapWidth = map.cols;
+        mapHeight = map.rows;
+        chunks.clear();
+    }
+
+    public void setTile(int col, int row, int tileId) {
+        int i = row * mapWidth + col;
+        if (tileMap[i] != tileId) {
+            tileMap[i] = tileId;
+            chunks.remove(chunkKey(col / CHUNK_TILES, row / CHUNK_TILES));
+        }
+    }
+
+    public int getTile(int col, int row) {
+        return tileMap[row * mapWidth + col];
+    }
+
+    // Off draws tile by tile, as before the chunk cache; kept for comparison.
+    public void setChunkCache(boolean enabled) {
+        chunkCache = enabled;
+        chunks.clear();
+    }
+
+    private MapFile readMap(String mapName) throws IOException {
+        URL binary = getClass().getResource("/maps/" + mapName + ".bqm");
+        URL text = getClass().getResource("/maps/" + mapName + ".txt");
+        if (binary != null && (text == null || lastModified(binary) >= lastModified(text))) {
+            try (InputStream in = binary.openStream()) {
+                return MapFile.read(Channels.newChannel(in));
+            }
+        }
+        if (text == null) {
+            throw new IOException("no /maps/" + mapName + ".bqm or .txt");
+        }
+        if (binary != null) {
+            System.err.println("/maps/" + mapName + ".bqm is older than " + mapName
+                    + ".txt; reading the text map until tile.MapConverter is rerun");
+        }
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(text.openStream()))) {
+            return MapFile.readText(br);
+        }
+    }
+
+    private static long lastModified(URL url) throws IOException {
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return Files.getLastModifiedTime(Paths.get(url.toURI())).toMillis();
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+        URLConnection conn = url.openConnection();
+        try (InputStream in = conn.getInputStream()) {
+            return conn.getLastModified();
+        }
+    }
+
     private void createDefaultMap() {
         // Fallback map if file loading fails
         System.out.println("Creating default fallback map");
+        mapWidth = 37;
+        mapHeight = 32;
+        tileMap = new int[mapWidth * mapHeight];
+        chunks.clear();
         for (int row = 0; row < mapHeight; row++) {
             for (int col = 0; col < mapWidth; col++) {
                 if (row == 0 || row == mapHeight - 1 || col == 0 || col == mapWidth - 1) {
-                    tileMap[row][col] = 1; // Walls on borders
+                    tileMap[row * mapWidth + col] = 1; // Walls on borders
                 } else {
-                    tileMap[row][col] = 0; // Grass inside
+                    tileMap[row * mapWidth + col] = 0; // Grass inside
                 }
             }
         }
     }
 
     public void draw(Graphics2D g2, int cameraX, int cameraY, int screenWidth, int screenHeight) {
+        if (!chunkCache) {
+            drawTiles(g2, cameraX, cameraY, screenWidth, screenHeight);
+            return;
+        }
+        int chunkPixels = CHUNK_TILES * tileSize;
+        int chunksX = (mapWidth + CHUNK_TILES - 1) / CHUNK_TILES;
+        int chunksY = (mapHeight + CHUNK_TILES - 1) / CHUNK_TILES;
+        int startX = Math.max(0, Math.floorDiv(cameraX, chunkPixels));
+        int startY = Math.max(0, Math.floorDiv(cameraY, chunkPixels));
+        int endX = Math.min(chunksX - 1, Math.floorDiv(cameraX + screenWidth - 1, chunkPixels));
+        int endY = Math.min(chunksY - 1, Math.floorDiv(cameraY + screenHeight - 1, chunkPixels));
+
+        for (int cy = startY; cy <= endY; cy++) {
+            for (int cx = startX; cx <= endX; cx++) {
+                BufferedImage chunk = chunks.get(chunkKey(cx, cy));
+                if (chunk == null) {
+                    chunk = bakeChunk(cx, cy);
+                    chunks.put(chunkKey(cx, cy), chunk);
+                }
+                g2.drawImage(chunk, cx * chunkPixels - cameraX, cy * chunkPixels - cameraY, null);
+            }
+        }
+    }
+
+    private static int chunkKey(int cx, int cy) {
+        return (cy << 16) | cx;
+    }
+
+    // Scales every tile of the chunk once into an image the screen can blit directly.
+    private BufferedImage bakeChunk(int cx, int cy) {
+        int chunkPixels = CHUNK_TILES * tileSize;
+        BufferedImage chunk = createCompatibleImage(chunkPixels, chunkPixels);
+        Graphics2D g = chunk.createGraphics();
+        int col0 = cx * CHUNK_TILES;
+        int row0 = cy * CHUNK_TILES;
+        for (int row = row0; row < Math.min(mapHeight, row0 + CHUNK_TILES); row++) {
+            for (int col = col0; col < Math.min(mapWidth, col0 + CHUNK_TILES); col++) {
+                int tileIndex = tileMap[row * mapWidth + col];
+                if (tileIndex < tile.length && tile[tileIndex] != null && tile[tileIndex].image != null) {
+                    g.drawImage(tile[tileIndex].image, (col - col0) * tileSize, (row - row0) * tileSize,
+                            tileSize, tileSize, null);
+                }
+            }
+        }
+        g.dispose();
+        return chunk;
+    }
+
+    private static BufferedImage createCompatibleImage(int width, int height) {
+        if (!GraphicsEnvironment.isHeadless()) {
+            GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            return gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+
+    private void drawTiles(Graphics2D g2, int cameraX, int cameraY, int screenWidth, int screenHeight) {
         // Draw only visible tiles within the screen bounds
         int startCol = Math.max(0, cameraX / tileSize);
         int startRow = Math.max(0, cameraY / tileSize);
@@ -162,10 +291,10 @@ public class TileManager {
         // Draw the visible tiles
         for (int row = startRow; row < endRow; row++) {
             for (int col = startCol; col < endCol; col++) {
-                int tileIndex = tileMap[row][col];
+                int tileIndex = tileMap[row * mapWidth + col];
 
                 // Only draw if the tile exists and has an image
-                if (tile[tileIndex] != null && tile[tileIndex].image != null) {
+                if (tileIndex < tile.length && tile[tileIndex] != null && tile[tileIndex].image != null) {
                     int worldX = col * tileSize;
                     int worldY = row * tileSize;
                     int screenX = worldX - cameraX;
@@ -207,7 +336,7 @@ public class TileManager {
         for (int tileY = tileY1; tileY <= tileY2; tileY++) {
             for (int tileX = tileX1; tileX <= tileX2; tileX++) {
                 if (tileX >= 0 && tileX < mapWidth && tileY >= 0 && tileY < mapHeight) {
-                    int tileIndex = tileMap[tileY][tileX];
+                    int tileIndex = tileMap[tileY * mapWidth + tileX];
                     if (isTileSolid(tileIndex)) {
                         return false; // Solid tile found
                     }